@@ -1,11 +1,45 @@
+import api.AdminResource;
 import ui.MainMenu;
+import ui.TerminalServer;
 
 /**
  * Entry point for the Hotel Application.
+ * <p>
+ * Start with {@code -Dhotel.replication.port=<port>} to run as a replication primary, or with
+ * {@code -Dhotel.replication.primary=<host>:<port>} to run as a read-only replica of a primary. Start with
+ * {@code -Dhotel.terminal.port=<port>} to serve one menu session per terminal connection instead of the console.
  */
 final public class HotelApplication {
     public static void main(String[] args) {
+        startReplication();
+
+        Integer terminalPort = Integer.getInteger("hotel.terminal.port");
+
+        if (terminalPort != null) {
+            int port = new TerminalServer(terminalPort).start();
+            System.out.println("Terminal server listening on port " + port + ".");
+            return;
+        }
+
         MainMenu mainMenu = new MainMenu();
         mainMenu.getMainMenu();
     }
-}
\ No newline at end of file
+
+    /**
+     * Start the replication role configured by the system properties, if any.
+     */
+    private static void startReplication() {
+        AdminResource adminResource = AdminResource.getInstance();
+        Integer primaryPort = Integer.getInteger("hotel.replication.port");
+        String primary = System.getProperty("hotel.replication.primary");
+
+        if (primaryPort != null) {
+            adminResource.startPrimary(primaryPort);
+        } else if (primary != null) {
+            int separator = primary.lastIndexOf(':');
+
+            adminResource.startReplica(primary.substring(0, separator),
+                    Integer.parseInt(primary.substring(separator + 1)));
+        }
+    }
+}
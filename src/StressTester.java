@@ -0,0 +1,324 @@
+import model.Customer;
+import model.DailyGuestReport;
+import model.Dates;
+import model.IRoom;
+import model.Money;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import service.CustomerService;
+import service.ReservationService;
+import service.ReservationSnapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency stress harness for the {@link ReservationService} and the {@link CustomerService}.
+ * <p>
+ * Worker threads run a randomized mix of {@code reserveRoom} (after a {@code findAvailableRooms}),
+ * {@code findAvailableRooms}, {@code addRoom}, {@code addCustomer} and {@code getCustomerReservations} for a fixed time
+ * budget, on few rooms and a short booking window so the operations contend. Then the harness checks the invariants:
+ * <ul>
+ *     <li>no room has overlapping stays;</li>
+ *     <li>no booking is lost (every successful booking is in its room and in its customer reservations);</li>
+ *     <li>the customer reservations, the room reservations, the free-room counters and the daily guest index
+ *     agree;</li>
+ *     <li>every registered customer can be found.</li>
+ * </ul>
+ * It prints the operations per second and the violations, and exits with status 1 if there is any violation.
+ * <p>
+ * Configured by system properties: {@code hotel.stress.seconds} (10), {@code hotel.stress.threads} (8),
+ * {@code hotel.stress.rooms} (64), {@code hotel.stress.customers} (64), {@code hotel.stress.window-days} (60) and
+ * {@code hotel.stress.seed} (random).
+ */
+public class StressTester {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+    private static final int MAX_NIGHTS = 7;
+    private static final int MAX_PRINTED_VIOLATIONS = 20;
+
+    private enum Operation {
+        RESERVE_ROOM,
+        FIND_AVAILABLE_ROOMS,
+        ADD_ROOM,
+        ADD_CUSTOMER,
+        GET_CUSTOMER_RESERVATIONS
+    }
+
+    private static final ReservationService reservationService = ReservationService.getInstance();
+    private static final CustomerService customerService = CustomerService.getInstance();
+
+    private static final Queue<Reservation> bookings = new ConcurrentLinkedQueue<>();
+    private static final Queue<String> customerEmails = new ConcurrentLinkedQueue<>();
+    private static final Queue<String> violations = new ConcurrentLinkedQueue<>();
+    private static final Map<Operation, LongAdder> operationCounts = new EnumMap<>(Operation.class);
+    private static final LongAdder rejectedBookings = new LongAdder();
+    private static final AtomicInteger nextRoomNumber = new AtomicInteger(1000);
+    private static final AtomicInteger nextCustomerNumber = new AtomicInteger();
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = Integer.getInteger("hotel.stress.seconds", 10);
+        int threads = Integer.getInteger("hotel.stress.threads", 8);
+        int rooms = Integer.getInteger("hotel.stress.rooms", 64);
+        int customers = Integer.getInteger("hotel.stress.customers", 64);
+        int windowDays = Integer.getInteger("hotel.stress.window-days", 60);
+        long seed = Long.getLong("hotel.stress.seed", new Random().nextLong());
+
+        for (Operation operation : Operation.values()) {
+            operationCounts.put(operation, new LongAdder());
+        }
+
+        for (int room = 0; room < rooms; room++) {
+            addRoom(new Random(seed + room));
+        }
+
+        for (int customer = 0; customer < customers; customer++) {
+            addCustomer();
+        }
+
+        System.out.println("Stress test: " + threads + " threads, " + seconds + " s, " + rooms + " rooms, "
+                + customers + " customers, seed " + seed + ".");
+
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int worker = 0; worker < threads; worker++) {
+            Random random = new Random(seed * 31 + worker);
+            Thread thread = new Thread(() -> runWorker(random, windowDays, deadline, start), "stress-" + worker);
+            workers.add(thread);
+            thread.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+
+        checkInvariants(windowDays);
+        printReport(elapsedSeconds);
+
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    private static void runWorker(Random random, int windowDays, long deadline, CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        while (System.nanoTime() < deadline) {
+            int dice = random.nextInt(100);
+            Operation operation = dice < 40 ? Operation.RESERVE_ROOM
+                    : dice < 70 ? Operation.FIND_AVAILABLE_ROOMS
+                    : dice < 73 ? Operation.ADD_ROOM
+                    : dice < 80 ? Operation.ADD_CUSTOMER
+                    : Operation.GET_CUSTOMER_RESERVATIONS;
+
+            try {
+                switch (operation) {
+                    case RESERVE_ROOM -> reserveRoom(random, windowDays);
+                    case FIND_AVAILABLE_ROOMS -> reservationService.findAvailableRooms(getDates(random, windowDays),
+                            "A");
+                    case ADD_ROOM -> addRoom(random);
+                    case ADD_CUSTOMER -> addCustomer();
+                    case GET_CUSTOMER_RESERVATIONS -> getCustomerReservations(random);
+                }
+            } catch (RuntimeException e) {
+                violations.add(operation + " threw " + e);
+            }
+
+            operationCounts.get(operation).increment();
+        }
+    }
+
+    private static void reserveRoom(Random random, int windowDays) {
+        Dates dates = getDates(random, windowDays);
+        List<IRoom> availableRooms = reservationService.findAvailableRooms(dates, "A");
+
+        if (availableRooms.isEmpty()) {
+            return;
+        }
+
+        IRoom room = availableRooms.get(random.nextInt(availableRooms.size()));
+        Customer customer = getRandomCustomer(random);
+
+        try {
+            bookings.add(reservationService.reserveRoom(customer, room, dates));
+        } catch (IllegalArgumentException e) {
+            // Another worker booked the room since the search: the booking is rightly rejected.
+            rejectedBookings.increment();
+        }
+    }
+
+    private static void addRoom(Random random) {
+        String number = Integer.toString(nextRoomNumber.getAndIncrement());
+        RoomType type = random.nextBoolean() ? RoomType.SINGLE : RoomType.DOUBLE;
+
+        reservationService.addRoom(new Room(number, Money.ofUnits(50 + random.nextInt(200)), type));
+    }
+
+    private static void addCustomer() {
+        String email = "guest" + nextCustomerNumber.getAndIncrement() + "@stress.com";
+
+        customerService.addCustomer(email, "Guest", "Stress");
+        customerEmails.add(email);
+    }
+
+    private static void getCustomerReservations(Random random) {
+        Customer customer = getRandomCustomer(random);
+
+        for (Reservation reservation : reservationService.getCustomerReservations(customer)) {
+            if (!reservation.getCustomer().equals(customer)) {
+                violations.add("Reservations of " + customer.getEmail() + " include a reservation of "
+                        + reservation.getCustomer().getEmail() + ".");
+            }
+        }
+    }
+
+    private static Customer getRandomCustomer(Random random) {
+        int count = nextCustomerNumber.get();
+
+        // The customer numbers are handed out before the customers are added, so retry until one is there.
+        while (true) {
+            Customer customer = customerService.getCustomer("guest" + random.nextInt(count) + "@stress.com");
+
+            if (customer != null) {
+                return customer;
+            }
+        }
+    }
+
+    private static Dates getDates(Random random, int windowDays) {
+        LocalDate checkIn = FIRST_DAY.plusDays(random.nextInt(windowDays));
+
+        return new Dates(checkIn, checkIn.plusDays(1 + random.nextInt(MAX_NIGHTS)));
+    }
+
+    private static void checkInvariants(int windowDays) {
+        ReservationSnapshot snapshot = reservationService.getSnapshot();
+        List<IRoom> rooms = snapshot.getAllRooms();
+        Set<Reservation> roomReservations = new HashSet<>();
+
+        // No overlapping stays in a room.
+        for (IRoom room : rooms) {
+            List<Reservation> reservations = new ArrayList<>(snapshot.getRoomReservations(room.getNumber()));
+            reservations.sort(Comparator.comparing(Reservation::getCheckIn));
+
+            for (int index = 1; index < reservations.size(); index++) {
+                if (reservations.get(index).getCheckIn().isBefore(reservations.get(index - 1).getCheckOut())) {
+                    violations.add("Room " + room.getNumber() + " has overlapping stays: "
+                            + describe(reservations.get(index - 1)) + " and " + describe(reservations.get(index)));
+                }
+            }
+
+            roomReservations.addAll(reservations);
+        }
+
+        // No lost bookings, and the customer reservations agree with the room reservations.
+        Set<Reservation> customerReservations = new HashSet<>();
+
+        for (String email : customerEmails) {
+            Customer customer = customerService.getCustomer(email);
+
+            if (customer == null) {
+                violations.add("Customer " + email + " was registered but cannot be found.");
+                continue;
+            }
+
+            customerReservations.addAll(reservationService.getCustomerReservations(customer));
+        }
+
+        for (Reservation booking : bookings) {
+            if (!roomReservations.contains(booking)) {
+                violations.add("Lost booking in the room reservations: " + describe(booking));
+            }
+
+            if (!customerReservations.contains(booking)) {
+                violations.add("Lost booking in the customer reservations: " + describe(booking));
+            }
+        }
+
+        if (!customerReservations.equals(roomReservations)) {
+            violations.add("The customer reservations (" + customerReservations.size()
+                    + ") do not match the room reservations (" + roomReservations.size() + ").");
+        }
+
+        if (customerService.getAllCustomers().size() != customerEmails.size()) {
+            violations.add("There are " + customerService.getAllCustomers().size() + " customers but "
+                    + customerEmails.size() + " were registered.");
+        }
+
+        // The free-room counters and the daily guest index agree with the room reservations on every night.
+        for (int day = 0; day < windowDays + MAX_NIGHTS; day++) {
+            LocalDate night = FIRST_DAY.plusDays(day);
+            Map<RoomType, Integer> occupiedRooms = new EnumMap<>(RoomType.class);
+            int inHouse = 0;
+
+            for (Reservation reservation : roomReservations) {
+                if (!reservation.getCheckIn().isAfter(night) && reservation.getCheckOut().isAfter(night)) {
+                    occupiedRooms.merge(reservation.getRoom().getType(), 1, Integer::sum);
+                    inHouse++;
+                }
+            }
+
+            for (RoomType type : RoomType.values()) {
+                long capacity = rooms.stream().filter(room -> room.getType() == type).count();
+                int expectedFreeRooms = (int) capacity - occupiedRooms.getOrDefault(type, 0);
+                int freeRooms = reservationService.getFreeRoomCount(type, new Dates(night, night.plusDays(1)));
+
+                if (freeRooms != expectedFreeRooms) {
+                    violations.add("On " + night + ", " + freeRooms + " " + type + " rooms are counted free but "
+                            + expectedFreeRooms + " are.");
+                }
+            }
+
+            DailyGuestReport report = reservationService.getDailyGuestReport(night);
+
+            if (report.inHouse().size() != inHouse) {
+                violations.add("On " + night + ", the daily guest index has " + report.inHouse().size()
+                        + " guests in house but the rooms have " + inHouse + ".");
+            }
+        }
+    }
+
+    private static void printReport(double elapsedSeconds) {
+        long totalOperations = 0;
+
+        for (Operation operation : Operation.values()) {
+            long count = operationCounts.get(operation).sum();
+            totalOperations += count;
+
+            System.out.printf("%-26s %10d ops %12.0f ops/s%n", operation, count, count / elapsedSeconds);
+        }
+
+        System.out.printf("%-26s %10d ops %12.0f ops/s%n", "TOTAL", totalOperations,
+                totalOperations / elapsedSeconds);
+        System.out.println("Bookings: " + bookings.size() + "; Rejected bookings (room taken since the search): "
+                + rejectedBookings.sum() + "; Violations: " + violations.size() + ".");
+
+        violations.stream().limit(MAX_PRINTED_VIOLATIONS).forEach(violation -> System.out.println("  " + violation));
+    }
+
+    private static String describe(Reservation reservation) {
+        return reservation.getCustomer().getEmail() + " in room " + reservation.getRoom().getNumber() + " from "
+                + reservation.getCheckIn() + " to " + reservation.getCheckOut() + ".";
+    }
+}
@@ -1,10 +1,17 @@
 import model.Customer;
+import model.Dates;
+import model.IRoom;
+import model.Room;
+import model.RoomType;
+import model.RoomTypeAllotment;
+import service.ReservationService;
 
 import java.time.LocalDate;
 
 public class Tester {
     public static void main(String[] args) {
         testIsBooked();
+        testRoomTypeAllotment();
         testCustomer();
     }
 
@@ -25,6 +32,32 @@ public class Tester {
         System.out.println(invalidCustomer);
     }
 
+    private static void testRoomTypeAllotment() {
+        ReservationService reservationService = ReservationService.getInstance();
+        Customer customer = new Customer("first", "second", "allotment@domain.com");
+        IRoom room = new Room("901", 10000, RoomType.SINGLE);
+        Dates dates = new Dates(LocalDate.of(2027, 3, 1), LocalDate.of(2027, 3, 4));
+
+        reservationService.addRoom(room);
+
+        RoomTypeAllotment allotment = reservationService.reserveRoomType(customer, RoomType.SINGLE, dates);
+
+        System.out.println(reservationService.getFreeRoomCount(RoomType.SINGLE, dates)); // expected result: 0
+        System.out.println(reservationService.findAvailableRooms(dates, "P").contains(room)); // expected result: false
+
+        try {
+            reservationService.reserveRoom(customer, room, dates);
+            System.out.println("booked");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getLocalizedMessage()); // expected result: No single rooms are free for those dates.
+        }
+
+        reservationService.assignRoom(allotment, room);
+
+        System.out.println(reservationService.getFreeRoomCount(RoomType.SINGLE, dates)); // expected result: 0
+        System.out.println(reservationService.getPendingAllotments().isEmpty()); // expected result: true
+    }
+
     private static void futureIsNotBooked() {
         LocalDate existingCheckIn = LocalDate.of(2026, 1, 1);
         LocalDate existingCheckOut = LocalDate.of(2026, 1, 15);
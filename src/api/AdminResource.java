@@ -1,10 +1,19 @@
 package api;
 
 import model.Customer;
+import model.DailyGuestReport;
+import model.DailyOccupancy;
+import model.Dates;
 import model.IRoom;
+import model.ReplicationStatus;
+import model.Reservation;
+import model.RoomTypeAllotment;
+import model.TestDataSpec;
 import service.CustomerService;
+import service.ReplicationService;
 import service.ReservationService;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -17,13 +26,15 @@ final public class AdminResource {
     private static AdminResource instance;
     private final CustomerService customerService;
     private final ReservationService reservationService;
+    private final ReplicationService replicationService;
 
     private AdminResource() {
         customerService = CustomerService.getInstance();
         reservationService = ReservationService.getInstance();
+        replicationService = ReplicationService.getInstance();
     }
 
-    public static AdminResource getInstance() {
+    public static synchronized AdminResource getInstance() {
         if (instance == null) {
             instance = new AdminResource();
         }
@@ -40,6 +51,17 @@ final public class AdminResource {
         reservationService.addRoom(room);
     }
 
+    /**
+     * Set the price per night of a room for a date range.
+     *
+     * @param roomNumber the room number.
+     * @param dates      the first night and the day after the last night.
+     * @param rate       the price per night, in minor units (see {@link model.Money}).
+     */
+    public void setNightlyRate(String roomNumber, Dates dates, long rate) {
+        reservationService.setNightlyRate(roomNumber, dates, rate);
+    }
+
     /**
      * Get all rooms.
      *
@@ -58,6 +80,87 @@ final public class AdminResource {
         return customerService.getAllCustomers();
     }
 
+    /**
+     * Search the customers by the start of their last name, first name or e-mail (case-insensitive).
+     *
+     * @param prefix the typed prefix.
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers.
+     */
+    public List<Customer> searchCustomers(String prefix, int limit) {
+        return customerService.searchCustomers(prefix, limit);
+    }
+
+    /**
+     * Get the room type allotments that are still waiting for a room to be assigned.
+     *
+     * @return the pending room type allotments.
+     */
+    public List<RoomTypeAllotment> getPendingAllotments() {
+        return reservationService.getPendingAllotments();
+    }
+
+    /**
+     * Assign a room to a room type allotment.
+     *
+     * @param allotment the pending room type allotment.
+     * @param room      the room.
+     */
+    public void assignRoom(RoomTypeAllotment allotment, IRoom room) {
+        reservationService.assignRoom(allotment, room);
+    }
+
+    /**
+     * Archive the reservations that check out before a cutoff date.
+     *
+     * @param cutoff the cutoff date.
+     * @return the number of archived reservations.
+     */
+    public int archiveReservations(LocalDate cutoff) {
+        return reservationService.archiveReservations(cutoff);
+    }
+
+    /**
+     * Get the front desk report of a day: who arrives, who departs and who stays in house that night.
+     *
+     * @param date the day.
+     * @return the daily guest report.
+     */
+    public DailyGuestReport getDailyGuestReport(LocalDate date) {
+        return reservationService.getDailyGuestReport(date);
+    }
+
+    /**
+     * Get the reservations that are in house on at least one night of a date range.
+     *
+     * @param dates the first night and the day after the last night.
+     * @return the in-house reservations.
+     */
+    public List<Reservation> getInHouseReservations(Dates dates) {
+        return reservationService.getInHouseReservations(dates);
+    }
+
+    /**
+     * Get the occupancy dashboard: the occupancy per room type of tonight and the next 30 nights.
+     *
+     * @return the occupancy of each night.
+     */
+    public List<DailyOccupancy> getOccupancyDashboard() {
+        return getOccupancy(LocalDate.now(), 31);
+    }
+
+    /**
+     * Get the occupancy per room type of consecutive nights.
+     *
+     * @param firstNight the first night.
+     * @param nights     the number of nights.
+     * @return the occupancy of each night.
+     * @throws IllegalArgumentException if the number of nights is not between 1 and 366.
+     */
+    public List<DailyOccupancy> getOccupancy(LocalDate firstNight, int nights) throws IllegalArgumentException {
+        return reservationService.getOccupancy(firstNight, nights);
+    }
+
     /**
      * Display all reservations.
      */
@@ -66,17 +169,64 @@ final public class AdminResource {
     }
 
     /**
-     * Add test data (rooms, customers and reservations).
+     * Start streaming the customers, rooms and reservations of this server to the replicas that connect to a port.
+     *
+     * @param port the port to listen to (0 for any free port).
+     * @return the port listened to.
+     * @throws IllegalStateException if this server is already a primary or is a replica.
+     */
+    public int startPrimary(int port) throws IllegalStateException {
+        return replicationService.startPrimary(port);
+    }
+
+    /**
+     * Start following a primary. This server then only serves searches and lookups.
+     *
+     * @param host the primary host.
+     * @param port the primary replication port.
+     * @throws IllegalStateException if this server is not standalone or already has data.
+     */
+    public void startReplica(String host, int port) throws IllegalStateException {
+        replicationService.startReplica(host, port);
+    }
+
+    /**
+     * Promote this replica: stop following the primary and accept writes again.
+     *
+     * @throws IllegalStateException if this server is not a replica.
      */
-    public void addTestData() {
-        customerService.addTestData();
+    public void promoteReplica() throws IllegalStateException {
+        replicationService.promote();
+    }
 
-        Customer customer1 = getCustomer("j@gmail.com");
-        Customer customer2 = getCustomer("mike@email.com");
+    /**
+     * Get the replication state of this server, including the replica lag.
+     *
+     * @return the replication status.
+     */
+    public ReplicationStatus getReplicationStatus() {
+        return replicationService.getStatus();
+    }
 
-        Customer[] customers = {customer1, customer2};
+    /**
+     * Add test data (rooms, customers and reservations) sized by the {@code hotel.testdata.*} system properties.
+     *
+     * @return the number of test reservations loaded.
+     */
+    public int addTestData() {
+        return addTestData(TestDataSpec.getDefault());
+    }
+
+    /**
+     * Add test data (rooms, customers and reservations). The same spec always generates the same dataset.
+     *
+     * @param spec the test dataset spec.
+     * @return the number of test reservations loaded.
+     */
+    public int addTestData(TestDataSpec spec) {
+        List<Customer> customers = customerService.addTestData(spec);
 
-        reservationService.addTestData(customers);
+        return reservationService.addTestData(spec, customers);
     }
 
     /**
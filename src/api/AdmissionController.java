@@ -0,0 +1,266 @@
+package api;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the searches and bookings of the {@link HotelResource}.
+ * <p>
+ * Searches and bookings share one concurrency limit, but searches may only use the part of it that is not reserved
+ * for bookings, so a search spike cannot starve bookings. Each workload has its own bounded waiting queue: a request
+ * waits (up to a maximum time) while the limit is reached, and is rejected right away with an
+ * {@link OverloadedException} when its queue is full or the wait times out.
+ * <p>
+ * The limit adapts to the observed latency (additive increase, multiplicative decrease): it grows by one while
+ * requests finish under the target latency with the limit fully used, and shrinks by 10% when a request is slower
+ * than the target. The limit shrinks at most once per window: only a slow request admitted after the last decrease can
+ * shrink it again, so a burst of slow requests that ran under the old limit counts once.
+ * <p>
+ * Searches and bookings wait on separate conditions, and a release only wakes as many waiters of each workload as
+ * there are slots that workload can now use.
+ */
+final class AdmissionController {
+    /**
+     * The kinds of work that are admitted separately.
+     */
+    enum Workload {
+        SEARCH,
+        BOOKING
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double bookingShare;
+    private final int searchQueueCapacity;
+    private final int bookingQueueCapacity;
+    private final long maxWaitNanos;
+    private final long targetLatencyNanos;
+
+    private final ReentrantLock lock;
+    private final Condition searchSlotFree;
+    private final Condition bookingSlotFree;
+
+    private double limit;
+    private long lastDecreaseNanos;
+    private int inFlightSearches;
+    private int inFlightBookings;
+    private int waitingSearches;
+    private int waitingBookings;
+
+    /**
+     * Creates an admission controller configured by the {@code hotel.admission.*} system properties.
+     */
+    AdmissionController() {
+        minLimit = Integer.getInteger("hotel.admission.min-limit", 4);
+        maxLimit = Integer.getInteger("hotel.admission.max-limit", 1024);
+        limit = Integer.getInteger("hotel.admission.initial-limit", 64);
+        bookingShare = Integer.getInteger("hotel.admission.booking-share-percent", 20) / 100.0;
+        searchQueueCapacity = Integer.getInteger("hotel.admission.search-queue", 256);
+        bookingQueueCapacity = Integer.getInteger("hotel.admission.booking-queue", 256);
+        maxWaitNanos = Integer.getInteger("hotel.admission.max-wait-ms", 100) * 1_000_000L;
+        targetLatencyNanos = Integer.getInteger("hotel.admission.target-latency-ms", 250) * 1_000_000L;
+        lock = new ReentrantLock();
+        searchSlotFree = lock.newCondition();
+        bookingSlotFree = lock.newCondition();
+        lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Run an operation once it is admitted.
+     *
+     * @param workload  the kind of work.
+     * @param operation the operation.
+     * @param <T>       the result type.
+     * @return the operation result.
+     * @throws OverloadedException if the operation is rejected (it is not run then).
+     */
+    <T> T run(Workload workload, Supplier<T> operation) throws OverloadedException {
+        HotelRequestEvent event = new HotelRequestEvent();
+        event.begin();
+
+        long waitStart = System.nanoTime();
+
+        try {
+            acquire(workload);
+        } catch (OverloadedException e) {
+            commitEvent(event, workload, System.nanoTime() - waitStart, true);
+            throw e;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            return operation.get();
+        } finally {
+            release(workload, System.nanoTime() - start);
+            commitEvent(event, workload, start - waitStart, false);
+        }
+    }
+
+    /**
+     * Fill in and commit a request event, if it is recorded.
+     *
+     * @param event         the request event.
+     * @param workload      the kind of work.
+     * @param admissionWait how long the request waited to be admitted, in nanoseconds.
+     * @param isRejected    true if the request was rejected.
+     */
+    private void commitEvent(HotelRequestEvent event, Workload workload, long admissionWait, boolean isRejected) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.workload = workload.name();
+            event.admissionWait = admissionWait;
+            event.rejected = isRejected;
+            event.concurrencyLimit = getLimit();
+            event.commit();
+        }
+    }
+
+    private int getLimit() {
+        lock.lock();
+
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(Workload workload) throws OverloadedException {
+        lock.lock();
+
+        try {
+            if (canAdmit(workload)) {
+                admit(workload);
+                return;
+            }
+
+            boolean isSearch = workload == Workload.SEARCH;
+
+            if (isSearch ? waitingSearches >= searchQueueCapacity : waitingBookings >= bookingQueueCapacity) {
+                throw new OverloadedException("The hotel system is busy. Please try again in a moment.");
+            }
+
+            awaitAdmission(workload, isSearch ? searchSlotFree : bookingSlotFree);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait in the queue of a workload until it can be admitted, then admit it. Must be called with the lock held.
+     *
+     * @param workload the kind of work.
+     * @param slotFree the condition signalled when a slot frees up for the workload.
+     * @throws OverloadedException if the wait times out or is interrupted.
+     */
+    private void awaitAdmission(Workload workload, Condition slotFree) throws OverloadedException {
+        boolean isSearch = workload == Workload.SEARCH;
+        long remainingNanos = maxWaitNanos;
+
+        if (isSearch) {
+            waitingSearches++;
+        } else {
+            waitingBookings++;
+        }
+
+        try {
+            while (!canAdmit(workload)) {
+                if (remainingNanos <= 0) {
+                    throw new OverloadedException("The hotel system is busy. Please try again in a moment.");
+                }
+
+                remainingNanos = slotFree.awaitNanos(remainingNanos);
+            }
+
+            admit(workload);
+        } catch (InterruptedException e) {
+            // Pass on a signal this waiter may have consumed.
+            signalAdmissibleWaiters();
+            Thread.currentThread().interrupt();
+            throw new OverloadedException("The request was interrupted while waiting to be admitted.");
+        } finally {
+            if (isSearch) {
+                waitingSearches--;
+            } else {
+                waitingBookings--;
+            }
+        }
+    }
+
+    private void release(Workload workload, long latencyNanos) {
+        lock.lock();
+
+        try {
+            long now = System.nanoTime();
+            boolean isLimitReached = inFlightSearches + inFlightBookings >= (int) limit;
+
+            if (workload == Workload.SEARCH) {
+                inFlightSearches--;
+            } else {
+                inFlightBookings--;
+            }
+
+            if (latencyNanos > targetLatencyNanos) {
+                // Requests admitted before the last decrease ran under the old limit: they do not decrease it again.
+                if (now - latencyNanos - lastDecreaseNanos >= 0) {
+                    limit = Math.max(minLimit, limit * 0.9);
+                    lastDecreaseNanos = now;
+                }
+            } else if (isLimitReached) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+
+            signalAdmissibleWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wake as many waiting bookings, then waiting searches, as there are slots they can use now. Must be called with
+     * the lock held.
+     */
+    private void signalAdmissibleWaiters() {
+        int currentLimit = (int) limit;
+        int freeSlots = currentLimit - inFlightSearches - inFlightBookings;
+        int bookingSignals = Math.min(Math.max(0, freeSlots), waitingBookings);
+
+        for (int signal = 0; signal < bookingSignals; signal++) {
+            bookingSlotFree.signal();
+        }
+
+        int freeSearchSlots = Math.min(freeSlots - bookingSignals,
+                currentLimit - getReservedForBookings(currentLimit) - inFlightSearches);
+        int searchSignals = Math.min(Math.max(0, freeSearchSlots), waitingSearches);
+
+        for (int signal = 0; signal < searchSignals; signal++) {
+            searchSlotFree.signal();
+        }
+    }
+
+    private boolean canAdmit(Workload workload) {
+        int currentLimit = (int) limit;
+
+        if (inFlightSearches + inFlightBookings >= currentLimit) {
+            return false;
+        }
+
+        return workload == Workload.BOOKING
+                || inFlightSearches < currentLimit - getReservedForBookings(currentLimit);
+    }
+
+    private int getReservedForBookings(int currentLimit) {
+        return Math.max(1, (int) Math.ceil(currentLimit * bookingShare));
+    }
+
+    private void admit(Workload workload) {
+        if (workload == Workload.SEARCH) {
+            inFlightSearches++;
+        } else {
+            inFlightBookings++;
+        }
+    }
+}
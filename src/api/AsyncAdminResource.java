@@ -0,0 +1,146 @@
+package api;
+
+import model.Customer;
+import model.Dates;
+import model.IRoom;
+import model.RoomTypeAllotment;
+import model.TestDataSpec;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of the {@link AdminResource}.
+ * <p>
+ * Every method runs the matching {@link AdminResource} method on the {@link AsyncExecutor} and returns right away.
+ * Cancelling a future cancels the call.
+ */
+final public class AsyncAdminResource {
+    private static AsyncAdminResource instance;
+
+    private final AdminResource adminResource;
+    private final AsyncExecutor asyncExecutor;
+
+    private AsyncAdminResource() {
+        adminResource = AdminResource.getInstance();
+        asyncExecutor = AsyncExecutor.getInstance();
+    }
+
+    public static synchronized AsyncAdminResource getInstance() {
+        if (instance == null) {
+            instance = new AsyncAdminResource();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Add a room.
+     *
+     * @param room the room.
+     * @return the future completion.
+     */
+    public CompletableFuture<Void> addRoom(IRoom room) {
+        return asyncExecutor.run(() -> adminResource.addRoom(room));
+    }
+
+    /**
+     * Set the price per night of a room for a date range.
+     *
+     * @param roomNumber the room number.
+     * @param dates      the first night and the day after the last night.
+     * @param rate       the price per night, in minor units (see {@link model.Money}).
+     * @return the future completion.
+     */
+    public CompletableFuture<Void> setNightlyRate(String roomNumber, Dates dates, long rate) {
+        return asyncExecutor.run(() -> adminResource.setNightlyRate(roomNumber, dates, rate));
+    }
+
+    /**
+     * Get all rooms.
+     *
+     * @return all rooms.
+     */
+    public CompletableFuture<List<IRoom>> getAllRooms() {
+        return asyncExecutor.supply(adminResource::getAllRooms);
+    }
+
+    /**
+     * Get all customers.
+     *
+     * @return all customers.
+     */
+    public CompletableFuture<List<Customer>> getAllCustomers() {
+        return asyncExecutor.supply(adminResource::getAllCustomers);
+    }
+
+    /**
+     * Search the customers by the start of their last name, first name or e-mail (case-insensitive).
+     *
+     * @param prefix the typed prefix.
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers.
+     */
+    public CompletableFuture<List<Customer>> searchCustomers(String prefix, int limit) {
+        return asyncExecutor.supply(() -> adminResource.searchCustomers(prefix, limit));
+    }
+
+    /**
+     * Get the room type allotments that are still waiting for a room to be assigned.
+     *
+     * @return the pending room type allotments.
+     */
+    public CompletableFuture<List<RoomTypeAllotment>> getPendingAllotments() {
+        return asyncExecutor.supply(adminResource::getPendingAllotments);
+    }
+
+    /**
+     * Assign a room to a room type allotment.
+     *
+     * @param allotment the pending room type allotment.
+     * @param room      the room.
+     * @return the future completion.
+     */
+    public CompletableFuture<Void> assignRoom(RoomTypeAllotment allotment, IRoom room) {
+        return asyncExecutor.run(() -> adminResource.assignRoom(allotment, room));
+    }
+
+    /**
+     * Archive the reservations that check out before a cutoff date.
+     *
+     * @param cutoff the cutoff date.
+     * @return the number of archived reservations.
+     */
+    public CompletableFuture<Integer> archiveReservations(LocalDate cutoff) {
+        return asyncExecutor.supply(() -> adminResource.archiveReservations(cutoff));
+    }
+
+    /**
+     * Display all reservations.
+     *
+     * @return the future completion.
+     */
+    public CompletableFuture<Void> displayAllReservations() {
+        return asyncExecutor.run(adminResource::displayAllReservations);
+    }
+
+    /**
+     * Add test data (rooms, customers and reservations) sized by the {@code hotel.testdata.*} system properties.
+     *
+     * @return the number of test reservations loaded.
+     */
+    public CompletableFuture<Integer> addTestData() {
+        return asyncExecutor.supply(adminResource::addTestData);
+    }
+
+    /**
+     * Add test data (rooms, customers and reservations). The same spec always generates the same dataset.
+     *
+     * @param spec the test dataset spec.
+     * @return the number of test reservations loaded.
+     */
+    public CompletableFuture<Integer> addTestData(TestDataSpec spec) {
+        return asyncExecutor.supply(() -> adminResource.addTestData(spec));
+    }
+}
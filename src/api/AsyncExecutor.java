@@ -0,0 +1,115 @@
+package api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the calls of the asynchronous resources ({@link AsyncHotelResource} and {@link AsyncAdminResource}).
+ * <p>
+ * Configured by system properties: {@code hotel.async.threads} bounds the number of threads (0, the default, starts a
+ * thread per concurrent call, the closest this JVM has to virtual threads) and {@code hotel.async.timeout-ms} sets a
+ * default timeout for every call (0, the default, for none).
+ * <p>
+ * When a returned future is cancelled, times out or is completed by the caller, the call is cancelled as well: it does
+ * not start if it is still queued, and its thread is interrupted if it is running (the availability searches stop
+ * scanning when interrupted).
+ */
+final class AsyncExecutor {
+    private static AsyncExecutor instance;
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    private AsyncExecutor() {
+        int threads = Integer.getInteger("hotel.async.threads", 0);
+        ThreadFactory threadFactory = new DaemonThreadFactory();
+
+        executor = threads > 0
+                ? Executors.newFixedThreadPool(threads, threadFactory)
+                : Executors.newCachedThreadPool(threadFactory);
+        timeoutMillis = Long.getLong("hotel.async.timeout-ms", 0);
+    }
+
+    static synchronized AsyncExecutor getInstance() {
+        if (instance == null) {
+            instance = new AsyncExecutor();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Run an operation asynchronously.
+     *
+     * @param operation the operation.
+     * @param <T>       the result type.
+     * @return the future result, completed exceptionally with the exception thrown by the operation.
+     */
+    <T> CompletableFuture<T> supply(Supplier<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        // The future is completed once the call is done, so that completing it from the call does not cancel the call.
+        FutureTask<T> call = new FutureTask<>(() -> future.isDone() ? null : operation.get()) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+
+                try {
+                    future.complete(get());
+                } catch (ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        future.whenComplete((result, exception) -> {
+            if (!call.isDone()) {
+                call.cancel(true);
+            }
+        });
+
+        executor.execute(call);
+
+        return timeoutMillis > 0 ? future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS) : future;
+    }
+
+    /**
+     * Run an action asynchronously.
+     *
+     * @param action the action.
+     * @return the future completion, completed exceptionally with the exception thrown by the action.
+     */
+    CompletableFuture<Void> run(Runnable action) {
+        return supply(() -> {
+            action.run();
+
+            return null;
+        });
+    }
+
+    /**
+     * Creates daemon threads, so pending calls never keep the application from exiting.
+     */
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "hotel-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package api;
+
+import model.AvailabilityQuery;
+import model.AvailabilityResult;
+import model.Customer;
+import model.Dates;
+import model.ExtendableStay;
+import model.IRoom;
+import model.Reservation;
+import model.RoomBlock;
+import model.RoomHold;
+import model.RoomType;
+import model.RoomTypeAllotment;
+import model.StayQuote;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of the {@link HotelResource}.
+ * <p>
+ * Every method runs the matching {@link HotelResource} method on the {@link AsyncExecutor} and returns right away, so
+ * independent calls (e.g., a search, a customer lookup and the reservation history of one screen) run concurrently and
+ * can be composed without blocking. The futures complete exceptionally with the exceptions of the synchronous methods,
+ * and cancelling a future cancels the call.
+ */
+final public class AsyncHotelResource {
+    private static AsyncHotelResource instance;
+
+    private final HotelResource hotelResource;
+    private final AsyncExecutor asyncExecutor;
+
+    private AsyncHotelResource() {
+        hotelResource = HotelResource.getInstance();
+        asyncExecutor = AsyncExecutor.getInstance();
+    }
+
+    public static synchronized AsyncHotelResource getInstance() {
+        if (instance == null) {
+            instance = new AsyncHotelResource();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Create a customer.
+     *
+     * @param email     the customer e-mail.
+     * @param firstName the customer first name.
+     * @param lastName  the customer last name.
+     * @return the future completion (an {@link IllegalArgumentException} if the e-mail format is invalid or the e-mail
+     * is already in use).
+     */
+    public CompletableFuture<Void> createCustomer(String email, String firstName, String lastName) {
+        return asyncExecutor.run(() -> hotelResource.createCustomer(email, firstName, lastName));
+    }
+
+    /**
+     * Check if a customer e-mail is already registered.
+     *
+     * @param email the customer e-mail.
+     * @return true if the e-mail is in use.
+     */
+    public CompletableFuture<Boolean> customerExists(String email) {
+        return asyncExecutor.supply(() -> hotelResource.customerExists(email));
+    }
+
+    /**
+     * Get a room by room number.
+     *
+     * @param number the room number
+     * @return the room.
+     */
+    public CompletableFuture<IRoom> getRoom(String number) {
+        return asyncExecutor.supply(() -> hotelResource.getRoom(number));
+    }
+
+    /**
+     * Reserve a room.
+     *
+     * @param email the customer e-mail.
+     * @param room  the room.
+     * @param dates the check-in and check-out dates for this reservation.
+     * @return the reservation (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<Reservation> reserveRoom(String email, IRoom room, Dates dates) {
+        return asyncExecutor.supply(() -> hotelResource.reserveRoom(email, room, dates));
+    }
+
+    /**
+     * Reserve a room safely on retries: a repeated call with the same idempotency key returns the outcome of the first
+     * call instead of booking again.
+     *
+     * @param idempotencyKey the client-chosen key identifying the booking request.
+     * @param email          the customer e-mail.
+     * @param room           the room.
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @return the reservation (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<Reservation> reserveRoom(String idempotencyKey, String email, IRoom room, Dates dates) {
+        return asyncExecutor.supply(() -> hotelResource.reserveRoom(idempotencyKey, email, room, dates));
+    }
+
+    /**
+     * Hold a room for a few minutes while the guest signs in or creates an account.
+     *
+     * @param room  the room.
+     * @param dates the check-in and check-out dates to hold.
+     * @return the room hold (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<RoomHold> holdRoom(IRoom room, Dates dates) {
+        return asyncExecutor.supply(() -> hotelResource.holdRoom(room, dates));
+    }
+
+    /**
+     * Confirm a room hold, turning it into a reservation.
+     *
+     * @param hold  the room hold.
+     * @param email the customer e-mail.
+     * @return the reservation (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<Reservation> confirmHold(RoomHold hold, String email) {
+        return asyncExecutor.supply(() -> hotelResource.confirmHold(hold, email));
+    }
+
+    /**
+     * Release a room hold, making the room available again right away.
+     *
+     * @param hold the room hold.
+     * @return the future completion.
+     */
+    public CompletableFuture<Void> releaseHold(RoomHold hold) {
+        return asyncExecutor.run(() -> hotelResource.releaseHold(hold));
+    }
+
+    /**
+     * Reserve any room of a type. The concrete room is assigned later by the hotel staff.
+     *
+     * @param email the customer e-mail.
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates for this reservation.
+     * @return the room type allotment.
+     */
+    public CompletableFuture<RoomTypeAllotment> reserveRoomType(String email, RoomType type, Dates dates) {
+        return asyncExecutor.supply(() -> hotelResource.reserveRoomType(email, type, dates));
+    }
+
+    /**
+     * Get how many rooms of a type are free on every night of the stay.
+     *
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates.
+     * @return the number of free rooms of that type.
+     */
+    public CompletableFuture<Integer> getFreeRoomCount(RoomType type, Dates dates) {
+        return asyncExecutor.supply(() -> hotelResource.getFreeRoomCount(type, dates));
+    }
+
+    /**
+     * Get a customer.
+     *
+     * @param email the customer e-mail.
+     * @return the customer.
+     */
+    public CompletableFuture<Customer> getCustomer(String email) {
+        return asyncExecutor.supply(() -> hotelResource.getCustomer(email));
+    }
+
+    /**
+     * Search the customers by the start of their last name, first name or e-mail (case-insensitive).
+     *
+     * @param prefix the typed prefix.
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers.
+     */
+    public CompletableFuture<List<Customer>> searchCustomers(String prefix, int limit) {
+        return asyncExecutor.supply(() -> hotelResource.searchCustomers(prefix, limit));
+    }
+
+    /**
+     * Get the customer reservations (based on his e-mail).
+     *
+     * @param email the customer e-mail.
+     * @return the customer reservations.
+     */
+    public CompletableFuture<List<Reservation>> getCustomersReservations(String email) {
+        return asyncExecutor.supply(() -> hotelResource.getCustomersReservations(email));
+    }
+
+    /**
+     * Get the customer reservations (based on his e-mail), optionally including the archived past reservations.
+     *
+     * @param email           the customer e-mail.
+     * @param includeArchived true to also read the archived reservations.
+     * @return the customer reservations.
+     */
+    public CompletableFuture<List<Reservation>> getCustomersReservations(String email, boolean includeArchived) {
+        return asyncExecutor.supply(() -> hotelResource.getCustomersReservations(email, includeArchived));
+    }
+
+    /**
+     * Find the available rooms for reservation given the check-in and check-out dates.
+     *
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
+     * @return the available rooms (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<List<IRoom>> findAvailableRooms(Dates dates, String roomSearchType) {
+        return asyncExecutor.supply(() -> hotelResource.findAvailableRooms(dates, roomSearchType));
+    }
+
+    /**
+     * Find the available rooms for a typed availability query. The result includes the plan used, for diagnostics.
+     *
+     * @param query the availability query.
+     * @return the available rooms and the plan used (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<AvailabilityResult> findAvailableRooms(AvailabilityQuery query) {
+        return asyncExecutor.supply(() -> hotelResource.findAvailableRooms(query));
+    }
+
+    /**
+     * Get how long a guest can stay in a room from a check-in date.
+     *
+     * @param room    the room.
+     * @param checkIn the desired check-in date.
+     * @return the stay until the next reservation of the room starts, or null if the room is occupied that night.
+     */
+    public CompletableFuture<ExtendableStay> getExtendableStay(IRoom room, LocalDate checkIn) {
+        return asyncExecutor.supply(() -> hotelResource.getExtendableStay(room, checkIn));
+    }
+
+    /**
+     * Get how long a guest can stay in each room of a type from a check-in date.
+     *
+     * @param type    the room type.
+     * @param checkIn the desired check-in date.
+     * @return the extendable stays of the rooms that are free that night.
+     */
+    public CompletableFuture<List<ExtendableStay>> findExtendableStays(RoomType type, LocalDate checkIn) {
+        return asyncExecutor.supply(() -> hotelResource.findExtendableStays(type, checkIn));
+    }
+
+    /**
+     * Find the available rooms with the total price of the stay, cheapest first.
+     *
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
+     * @return the stay quotes of the available rooms (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<List<StayQuote>> findAvailableRoomsByStayPrice(Dates dates, String roomSearchType) {
+        return asyncExecutor.supply(() -> hotelResource.findAvailableRoomsByStayPrice(dates, roomSearchType));
+    }
+
+    /**
+     * Find a block of rooms free together for the same dates, proposing the rooms with the closest room numbers.
+     *
+     * @param dates     the check-in and check-out dates.
+     * @param roomCount the number of rooms needed.
+     * @param type      the room type, or null for any type.
+     * @param maxPrice  the maximum price per night, in minor units ({@link Long#MAX_VALUE} for no bound).
+     * @return the room block (an {@link OverloadedException} if the system is overloaded).
+     */
+    public CompletableFuture<RoomBlock> findRoomBlock(Dates dates, int roomCount, RoomType type, long maxPrice) {
+        return asyncExecutor.supply(() -> hotelResource.findRoomBlock(dates, roomCount, type, maxPrice));
+    }
+
+    /**
+     * Quote the total price of a stay in a room.
+     *
+     * @param room  the room.
+     * @param dates the check-in and check-out dates.
+     * @return the stay quote.
+     */
+    public CompletableFuture<StayQuote> quoteStay(IRoom room, Dates dates) {
+        return asyncExecutor.supply(() -> hotelResource.quoteStay(room, dates));
+    }
+
+    /**
+     * Get all customers.
+     *
+     * @return all customers.
+     */
+    public CompletableFuture<List<Customer>> getAllCustomers() {
+        return asyncExecutor.supply(hotelResource::getAllCustomers);
+    }
+}
@@ -0,0 +1,16 @@
+package api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for one customer lookup by e-mail in the {@link HotelResource}.
+ */
+@Name("hotel.CustomerLookup")
+@Label("Customer Lookup")
+@Category({"Hotel", "Hotel Resource"})
+final class CustomerLookupEvent extends jdk.jfr.Event {
+    @Label("Found")
+    boolean found;
+}
@@ -0,0 +1,30 @@
+package api;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event for one {@link HotelResource} request that goes through admission control, with the time
+ * it waited to be admitted.
+ */
+@Name("hotel.HotelRequest")
+@Label("Hotel Request")
+@Category({"Hotel", "Hotel Resource"})
+@Description("Search or booking request, including the admission control wait")
+final class HotelRequestEvent extends jdk.jfr.Event {
+    @Label("Workload")
+    String workload;
+
+    @Label("Admission Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    long admissionWait;
+
+    @Label("Rejected")
+    boolean rejected;
+
+    @Label("Concurrency Limit")
+    int concurrencyLimit;
+}
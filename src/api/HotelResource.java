@@ -1,12 +1,21 @@
 package api;
 
+import model.AvailabilityQuery;
+import model.AvailabilityResult;
 import model.Customer;
 import model.Dates;
+import model.ExtendableStay;
 import model.IRoom;
 import model.Reservation;
+import model.RoomBlock;
+import model.RoomHold;
+import model.RoomType;
+import model.RoomTypeAllotment;
+import model.StayQuote;
 import service.CustomerService;
 import service.ReservationService;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -20,13 +29,15 @@ final public class HotelResource {
 
     private final ReservationService reservationService;
     private final CustomerService customerService;
+    private final AdmissionController admissionController;
 
     private HotelResource() {
         reservationService = ReservationService.getInstance();
         customerService = CustomerService.getInstance();
+        admissionController = new AdmissionController();
     }
 
-    public static HotelResource getInstance() {
+    public static synchronized HotelResource getInstance() {
         if (instance == null) {
             instance = new HotelResource();
         }
@@ -39,11 +50,22 @@ final public class HotelResource {
      * @param email     the customer e-mail.
      * @param firstName the customer first name.
      * @param lastName  the customer last name.
+     * @throws IllegalArgumentException if the e-mail format is invalid or the e-mail is already in use.
      */
-    public void createCustomer(String email, String firstName, String lastName) {
+    public void createCustomer(String email, String firstName, String lastName) throws IllegalArgumentException {
         customerService.addCustomer(email, firstName, lastName);
     }
 
+    /**
+     * Check if a customer e-mail is already registered.
+     *
+     * @param email the customer e-mail.
+     * @return true if the e-mail is in use.
+     */
+    public boolean customerExists(String email) {
+        return customerService.exists(email);
+    }
+
     /**
      * Get a room by room number.
      *
@@ -60,11 +82,98 @@ final public class HotelResource {
      * @param email the customer e-mail.
      * @param room  the room.
      * @param dates the check-in and check-out dates for this reservation.
+     * @return the reservation.
+     * @throws OverloadedException if the system is overloaded (the room was not reserved).
      */
-    public void reserveRoom(String email, IRoom room, Dates dates) {
+    public Reservation reserveRoom(String email, IRoom room, Dates dates) throws OverloadedException {
         Customer customer = getCustomer(email);
 
-        reservationService.reserveRoom(customer, room, dates);
+        return admissionController.run(AdmissionController.Workload.BOOKING,
+                () -> reservationService.reserveRoom(customer, room, dates));
+    }
+
+    /**
+     * Reserve a room safely on retries: a repeated call with the same idempotency key returns the outcome of the first
+     * call instead of booking again.
+     *
+     * @param idempotencyKey the client-chosen key identifying the booking request.
+     * @param email          the customer e-mail.
+     * @param room           the room.
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @return the reservation.
+     * @throws OverloadedException if the system is overloaded (the room was not reserved).
+     */
+    public Reservation reserveRoom(String idempotencyKey, String email, IRoom room, Dates dates)
+            throws OverloadedException {
+        Customer customer = getCustomer(email);
+
+        return admissionController.run(AdmissionController.Workload.BOOKING,
+                () -> reservationService.reserveRoom(idempotencyKey, customer, room, dates));
+    }
+
+    /**
+     * Hold a room for a few minutes ({@code hotel.hold.ttl-seconds}) while the guest signs in or creates an account:
+     * other guests do not see the room for those dates until the hold is confirmed, released or expires.
+     *
+     * @param room  the room.
+     * @param dates the check-in and check-out dates to hold.
+     * @return the room hold.
+     * @throws IllegalArgumentException if the room is already booked or held for some of those dates.
+     * @throws OverloadedException      if the system is overloaded (the room was not held).
+     */
+    public RoomHold holdRoom(IRoom room, Dates dates) throws IllegalArgumentException, OverloadedException {
+        return admissionController.run(AdmissionController.Workload.BOOKING,
+                () -> reservationService.holdRoom(room, dates));
+    }
+
+    /**
+     * Confirm a room hold, turning it into a reservation.
+     *
+     * @param hold  the room hold.
+     * @param email the customer e-mail.
+     * @return the reservation.
+     * @throws IllegalArgumentException if the hold already expired.
+     * @throws OverloadedException      if the system is overloaded (the hold was not confirmed).
+     */
+    public Reservation confirmHold(RoomHold hold, String email) throws IllegalArgumentException, OverloadedException {
+        Customer customer = getCustomer(email);
+
+        return admissionController.run(AdmissionController.Workload.BOOKING,
+                () -> reservationService.confirmHold(hold, customer));
+    }
+
+    /**
+     * Release a room hold, making the room available again right away.
+     *
+     * @param hold the room hold.
+     */
+    public void releaseHold(RoomHold hold) {
+        reservationService.releaseHold(hold);
+    }
+
+    /**
+     * Reserve any room of a type. The concrete room is assigned later by the hotel staff.
+     *
+     * @param email the customer e-mail.
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates for this reservation.
+     * @return the room type allotment.
+     */
+    public RoomTypeAllotment reserveRoomType(String email, RoomType type, Dates dates) {
+        Customer customer = getCustomer(email);
+
+        return reservationService.reserveRoomType(customer, type, dates);
+    }
+
+    /**
+     * Get how many rooms of a type are free on every night of the stay.
+     *
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates.
+     * @return the number of free rooms of that type.
+     */
+    public int getFreeRoomCount(RoomType type, Dates dates) {
+        return reservationService.getFreeRoomCount(type, dates);
     }
 
     /**
@@ -74,7 +183,30 @@ final public class HotelResource {
      * @return the customer.
      */
     public Customer getCustomer(String email) {
-        return customerService.getCustomer(email);
+        CustomerLookupEvent event = new CustomerLookupEvent();
+        event.begin();
+
+        Customer customer = customerService.getCustomer(email);
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.found = customer != null;
+            event.commit();
+        }
+
+        return customer;
+    }
+
+    /**
+     * Search the customers by the start of their last name, first name or e-mail (case-insensitive).
+     *
+     * @param prefix the typed prefix.
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers.
+     */
+    public List<Customer> searchCustomers(String prefix, int limit) {
+        return customerService.searchCustomers(prefix, limit);
     }
 
     /**
@@ -89,15 +221,105 @@ final public class HotelResource {
         return reservationService.getCustomerReservations(customer);
     }
 
+    /**
+     * Get the customer reservations (based on his e-mail), optionally including the archived past reservations.
+     *
+     * @param email           the customer e-mail.
+     * @param includeArchived true to also read the archived reservations.
+     * @return the customer reservations.
+     */
+    public List<Reservation> getCustomersReservations(String email, boolean includeArchived) {
+        Customer customer = getCustomer(email);
+
+        return reservationService.getCustomerReservations(customer, includeArchived);
+    }
+
     /**
      * Find the available rooms for reservation given the check-in and check-out dates.
      *
      * @param dates          the check-in and check-out dates for this reservation.
      * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
      * @return the available rooms.
+     * @throws OverloadedException if the system is overloaded (the search was not run).
+     */
+    public List<IRoom> findAvailableRooms(Dates dates, String roomSearchType) throws OverloadedException {
+        return admissionController.run(AdmissionController.Workload.SEARCH,
+                () -> reservationService.findAvailableRooms(dates, roomSearchType));
+    }
+
+    /**
+     * Get how long a guest can stay in a room from a check-in date.
+     *
+     * @param room    the room.
+     * @param checkIn the desired check-in date.
+     * @return the stay until the next reservation of the room starts, or null if the room is occupied that night.
+     */
+    public ExtendableStay getExtendableStay(IRoom room, LocalDate checkIn) {
+        return reservationService.getExtendableStay(room, checkIn);
+    }
+
+    /**
+     * Get how long a guest can stay in each room of a type from a check-in date.
+     *
+     * @param type    the room type.
+     * @param checkIn the desired check-in date.
+     * @return the extendable stays of the rooms that are free that night.
+     */
+    public List<ExtendableStay> findExtendableStays(RoomType type, LocalDate checkIn) {
+        return reservationService.findExtendableStays(type, checkIn);
+    }
+
+    /**
+     * Find the available rooms for a typed availability query. The result includes the plan used, for diagnostics.
+     *
+     * @param query the availability query.
+     * @return the available rooms and the plan used.
+     * @throws OverloadedException if the system is overloaded (the search was not run).
+     */
+    public AvailabilityResult findAvailableRooms(AvailabilityQuery query) throws OverloadedException {
+        return admissionController.run(AdmissionController.Workload.SEARCH,
+                () -> reservationService.findAvailableRooms(query));
+    }
+
+    /**
+     * Find the available rooms with the total price of the stay, cheapest first.
+     *
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
+     * @return the stay quotes of the available rooms.
+     * @throws OverloadedException if the system is overloaded (the search was not run).
+     */
+    public List<StayQuote> findAvailableRoomsByStayPrice(Dates dates, String roomSearchType)
+            throws OverloadedException {
+        return admissionController.run(AdmissionController.Workload.SEARCH,
+                () -> reservationService.findAvailableRoomsByStayPrice(dates, roomSearchType));
+    }
+
+    /**
+     * Find a block of rooms free together for the same dates, proposing the rooms with the closest room numbers.
+     *
+     * @param dates     the check-in and check-out dates.
+     * @param roomCount the number of rooms needed.
+     * @param type      the room type, or null for any type.
+     * @param maxPrice  the maximum price per night, in minor units ({@link Long#MAX_VALUE} for no bound).
+     * @return the room block.
+     * @throws OverloadedException if the system is overloaded (the search was not run).
+     */
+    public RoomBlock findRoomBlock(Dates dates, int roomCount, RoomType type, long maxPrice)
+            throws OverloadedException {
+        return admissionController.run(AdmissionController.Workload.SEARCH,
+                () -> reservationService.findRoomBlock(dates, roomCount, type, maxPrice));
+    }
+
+    /**
+     * Quote the total price of a stay in a room.
+     *
+     * @param room  the room.
+     * @param dates the check-in and check-out dates.
+     * @return the stay quote.
      */
-    public List<IRoom> findAvailableRooms(Dates dates, String roomSearchType) {
-        return reservationService.findAvailableRooms(dates, roomSearchType);
+    public StayQuote quoteStay(IRoom room, Dates dates) {
+        return reservationService.quoteStay(room, dates);
     }
 
     /**
@@ -0,0 +1,21 @@
+package api;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a request is rejected by admission control because the hotel system is overloaded. The request was not
+ * run and can be retried later.
+ */
+public class OverloadedException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates an exception with the specified detail message.
+     *
+     * @param message the detail message.
+     */
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * Represents how an {@link AvailabilityQuery} was answered, for diagnostics.
+ *
+ * @param accessPath     the access path the planner chose.
+ * @param totalRooms     the number of rooms in the hotel.
+ * @param candidateRooms the number of rooms read from the access path.
+ * @param checkedRooms   the number of candidate rooms that matched every filter and had their reservations checked.
+ */
+public record AvailabilityPlan(AccessPath accessPath, int totalRooms, int candidateRooms, int checkedRooms) {
+    /**
+     * Get this plan with the number of checked rooms.
+     *
+     * @param checkedRooms the number of candidate rooms that matched every filter and had their reservations checked.
+     * @return the plan.
+     */
+    public AvailabilityPlan withCheckedRooms(int checkedRooms) {
+        return new AvailabilityPlan(accessPath, totalRooms, candidateRooms, checkedRooms);
+    }
+
+    /**
+     * Represents the ways the rooms of an availability query can be read.
+     */
+    public enum AccessPath {
+        /**
+         * Every room.
+         */
+        FULL_SCAN,
+        /**
+         * The rooms of the queried room type.
+         */
+        TYPE_PARTITION,
+        /**
+         * The rooms in the queried price range, from the rooms sorted by price.
+         */
+        PRICE_INDEX,
+        /**
+         * The rooms in the queried room number range, from the rooms sorted by number.
+         */
+        ROOM_NUMBER_RANGE,
+        /**
+         * No room at all: the nightly free-room counters of the room type show a fully booked night.
+         */
+        DATE_OCCUPANCY
+    }
+}
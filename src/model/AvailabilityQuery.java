@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * Represents an availability search: the dates plus optional filters on the rooms. Start from
+ * {@link #of(Dates)} and narrow it with the {@code with...} methods.
+ *
+ * @param dates          the check-in and check-out dates.
+ * @param searchType     all, paid or free rooms.
+ * @param type           the room type, or null for any type.
+ * @param minPrice       the minimum price per night, in minor units (see {@link Money}).
+ * @param maxPrice       the maximum price per night, in minor units.
+ * @param fromRoomNumber the first room number (inclusive, compared as text), or null for no lower bound.
+ * @param toRoomNumber   the last room number (inclusive, compared as text), or null for no upper bound.
+ * @param limit          the maximum number of rooms to return.
+ */
+public record AvailabilityQuery(Dates dates, RoomSearchType searchType, RoomType type, long minPrice,
+                                long maxPrice, String fromRoomNumber, String toRoomNumber, int limit) {
+    /**
+     * Creates a query for all the rooms available on the dates.
+     *
+     * @param dates the check-in and check-out dates.
+     * @return the query.
+     */
+    public static AvailabilityQuery of(Dates dates) {
+        return new AvailabilityQuery(dates, RoomSearchType.ALL, null, 0, Long.MAX_VALUE, null, null,
+                Integer.MAX_VALUE);
+    }
+
+    public AvailabilityQuery withSearchType(RoomSearchType searchType) {
+        return new AvailabilityQuery(dates, searchType, type, minPrice, maxPrice, fromRoomNumber, toRoomNumber, limit);
+    }
+
+    public AvailabilityQuery withType(RoomType type) {
+        return new AvailabilityQuery(dates, searchType, type, minPrice, maxPrice, fromRoomNumber, toRoomNumber, limit);
+    }
+
+    public AvailabilityQuery withPriceRange(long minPrice, long maxPrice) {
+        return new AvailabilityQuery(dates, searchType, type, minPrice, maxPrice, fromRoomNumber, toRoomNumber, limit);
+    }
+
+    public AvailabilityQuery withRoomNumberRange(String fromRoomNumber, String toRoomNumber) {
+        return new AvailabilityQuery(dates, searchType, type, minPrice, maxPrice, fromRoomNumber, toRoomNumber, limit);
+    }
+
+    public AvailabilityQuery withLimit(int limit) {
+        return new AvailabilityQuery(dates, searchType, type, minPrice, maxPrice, fromRoomNumber, toRoomNumber, limit);
+    }
+
+    /**
+     * Check if a room matches every filter of the query (the dates are not checked).
+     *
+     * @param room the room.
+     * @return true if the room matches.
+     */
+    public boolean matches(IRoom room) {
+        long price = room.getPrice();
+
+        return switch (searchType) {
+            case PAID -> !room.isFree();
+            case FREE -> room.isFree();
+            case ALL -> true;
+        } && (type == null || room.getType() == type)
+                && price >= minPrice && price <= maxPrice
+                && (fromRoomNumber == null || room.getNumber().compareTo(fromRoomNumber) >= 0)
+                && (toRoomNumber == null || room.getNumber().compareTo(toRoomNumber) <= 0);
+    }
+}
@@ -0,0 +1,12 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Represents the answer to an {@link AvailabilityQuery}.
+ *
+ * @param rooms the available rooms, sorted by room number.
+ * @param plan  the plan used to find them.
+ */
+public record AvailabilityResult(List<IRoom> rooms, AvailabilityPlan plan) {
+}
@@ -0,0 +1,21 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Represents the front desk report of one day: who arrives, who departs and who stays in house that night.
+ *
+ * @param date       the day.
+ * @param arrivals   the reservations that check in that day.
+ * @param departures the reservations that check out that day.
+ * @param inHouse    the reservations that stay in house that night.
+ */
+public record DailyGuestReport(LocalDate date, List<Reservation> arrivals, List<Reservation> departures,
+                               List<Reservation> inHouse) {
+    @Override
+    public String toString() {
+        return "Date: " + date + "; Arrivals: " + arrivals.size() + "; Departures: " + departures.size()
+                + "; In house: " + inHouse.size() + ".";
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Represents the occupancy of one night, per room type.
+ *
+ * @param date          the night.
+ * @param occupiedRooms the number of reserved, held or allotted rooms of each type that night.
+ * @param totalRooms    the number of rooms of each type.
+ */
+public record DailyOccupancy(LocalDate date, Map<RoomType, Integer> occupiedRooms, Map<RoomType, Integer> totalRooms) {
+    /**
+     * Get the share of the rooms of a type that are reserved, held or allotted that night.
+     *
+     * @param type the room type.
+     * @return the occupancy rate, from 0 to 1 (0 if there are no rooms of that type).
+     */
+    public double getOccupancyRate(RoomType type) {
+        int total = totalRooms.getOrDefault(type, 0);
+
+        return total == 0 ? 0 : (double) occupiedRooms.getOrDefault(type, 0) / total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Date: " + date);
+
+        for (RoomType type : RoomType.values()) {
+            builder.append("; ").append(type).append(": ").append(occupiedRooms.getOrDefault(type, 0)).append('/')
+                    .append(totalRooms.getOrDefault(type, 0))
+                    .append(String.format(" (%.0f%%)", 100 * getOccupancyRate(type)));
+        }
+
+        return builder.append('.').toString();
+    }
+}
@@ -0,0 +1,29 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the longest stay a room allows from a check-in date, i.e. until the next reservation or hold of that room
+ * starts.
+ *
+ * @param room           the room.
+ * @param checkIn        the desired check-in date.
+ * @param latestCheckOut the latest possible check-out date, or null if the room has no later reservation or hold.
+ */
+public record ExtendableStay(IRoom room, LocalDate checkIn, LocalDate latestCheckOut) {
+    /**
+     * Check if the stay can be extended without limit.
+     *
+     * @return true if the room has no reservation or hold after the check-in date.
+     */
+    public boolean isOpenEnded() {
+        return latestCheckOut == null;
+    }
+
+    @Override
+    public String toString() {
+        String until = isOpenEnded() ? "with no end date" : "until " + latestCheckOut;
+
+        return "Room number: " + room.getNumber() + "; Free from " + checkIn + " " + until + ".";
+    }
+}
@@ -11,14 +11,14 @@ final public class FreeRoom extends Room {
      * @param type   the room type.
      */
     public FreeRoom(String number, RoomType type) {
-        super(number, 0.0, type);
+        super(number, 0, type);
     }
 
     @Override
     public String toString() {
         return "FreeRoom{" +
                 "number='" + getNumber() + '\'' +
-                ", price=" + getPrice() +
+                ", price=" + Money.format(getPrice()) +
                 ", type=" + getType() +
                 '}';
     }
@@ -6,7 +6,12 @@ package model;
 public interface IRoom {
     String getNumber();
 
-    Double getPrice();
+    /**
+     * Get the price per night, in minor units (see {@link Money}).
+     *
+     * @return the price per night in cents.
+     */
+    long getPrice();
 
     RoomType getType();
 
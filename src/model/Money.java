@@ -0,0 +1,90 @@
+package model;
+
+/**
+ * Fixed-point money amounts: prices are stored as a {@code long} number of minor units (cents), so comparisons, sorts
+ * and totals are exact and never box.
+ */
+final public class Money {
+    /**
+     * The number of minor units (cents) in one major unit (dollar).
+     */
+    public static final long MINOR_UNITS_PER_UNIT = 100;
+
+    private static final int FRACTION_DIGITS = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Get the amount of whole major units in minor units (e.g., 120 dollars is 12000 cents).
+     *
+     * @param units the amount in major units.
+     * @return the amount in minor units.
+     * @throws ArithmeticException if the amount overflows.
+     */
+    public static long ofUnits(long units) throws ArithmeticException {
+        return Math.multiplyExact(units, MINOR_UNITS_PER_UNIT);
+    }
+
+    /**
+     * Parse a decimal amount with at most two decimals (e.g., "120", "99.9" or "-0.50") into minor units, exactly.
+     *
+     * @param amount the decimal amount.
+     * @return the amount in minor units.
+     * @throws IllegalArgumentException if the amount is not a decimal number with at most two decimals, or overflows.
+     */
+    public static long parse(CharSequence amount) throws IllegalArgumentException {
+        int length = amount.length();
+        int index = length > 0 && (amount.charAt(0) == '-' || amount.charAt(0) == '+') ? 1 : 0;
+        boolean isNegative = index == 1 && amount.charAt(0) == '-';
+        long minorUnits = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+
+        try {
+            for (; index < length; index++) {
+                char character = amount.charAt(index);
+
+                if (character == '.' && fractionDigits < 0) {
+                    fractionDigits = 0;
+                } else if (character >= '0' && character <= '9' && fractionDigits < FRACTION_DIGITS) {
+                    minorUnits = Math.addExact(Math.multiplyExact(minorUnits, 10), character - '0');
+                    digits++;
+
+                    if (fractionDigits >= 0) {
+                        fractionDigits++;
+                    }
+                } else {
+                    throw new IllegalArgumentException(
+                            "Enter a valid amount with at most two decimals (e.g., 199.99).");
+                }
+            }
+
+            if (digits == 0) {
+                throw new IllegalArgumentException("Enter a valid amount with at most two decimals (e.g., 199.99).");
+            }
+
+            for (int missingDigits = FRACTION_DIGITS - Math.max(fractionDigits, 0); missingDigits > 0;
+                 missingDigits--) {
+                minorUnits = Math.multiplyExact(minorUnits, 10);
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("That amount is too large.");
+        }
+
+        return isNegative ? -minorUnits : minorUnits;
+    }
+
+    /**
+     * Format an amount in minor units as a decimal amount with two decimals (e.g., 12000 is "120.00").
+     *
+     * @param minorUnits the amount in minor units.
+     * @return the decimal amount.
+     */
+    public static String format(long minorUnits) {
+        long absoluteUnits = Math.abs(minorUnits / MINOR_UNITS_PER_UNIT);
+        long absoluteCents = Math.abs(minorUnits % MINOR_UNITS_PER_UNIT);
+
+        return (minorUnits < 0 ? "-" : "") + absoluteUnits + (absoluteCents < 10 ? ".0" : ".") + absoluteCents;
+    }
+}
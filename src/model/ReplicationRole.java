@@ -0,0 +1,19 @@
+package model;
+
+/**
+ * Represents the replication role of this server.
+ */
+public enum ReplicationRole {
+    /**
+     * Accepts writes and does not stream them (the default).
+     */
+    STANDALONE,
+    /**
+     * Accepts writes and streams them to the connected replicas.
+     */
+    PRIMARY,
+    /**
+     * Applies the writes streamed by a primary and only serves reads.
+     */
+    REPLICA
+}
@@ -0,0 +1,32 @@
+package model;
+
+/**
+ * Represents the replication state of this server.
+ *
+ * @param role               the replication role.
+ * @param connected          true if the server is connected to its primary (replica) or listening (primary).
+ * @param replicas           the number of connected replicas (primary only).
+ * @param appliedSequence    the sequence number of the last mutation written (primary) or applied (replica).
+ * @param primarySequence    the sequence number of the last mutation the primary is known to have written.
+ * @param lagMillis          the delay between the primary writing the last applied mutation and the replica
+ *                           applying it, in milliseconds (0 for a primary).
+ * @param lastError          why the replica stopped following its primary, or null if it did not.
+ */
+public record ReplicationStatus(ReplicationRole role, boolean connected, int replicas, long appliedSequence,
+                                long primarySequence, long lagMillis, String lastError) {
+    /**
+     * Get how many mutations written by the primary are not applied yet.
+     *
+     * @return the replica lag, in mutations.
+     */
+    public long getLagMutations() {
+        return Math.max(0, primarySequence - appliedSequence);
+    }
+
+    @Override
+    public String toString() {
+        return "Role: " + role + "; Connected: " + connected + "; Replicas: " + replicas + "; Applied: "
+                + appliedSequence + "; Primary: " + primarySequence + "; Lag: " + getLagMutations() + " mutations, "
+                + lagMillis + " ms." + (lastError == null ? "" : " Error: " + lastError);
+    }
+}
@@ -63,7 +63,7 @@ final public class Reservation {
                 .replace("$lastName", customer.getLastName())
                 .replace("$number", room.getNumber())
                 .replace("$type", room.getType().name())
-                .replace("$price", room.getPrice().toString())
+                .replace("$price", Money.format(room.getPrice()))
                 .replace("$checkIn", checkIn.toString())
                 .replace("$checkOut", checkOut.toString());
     }
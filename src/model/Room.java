@@ -7,17 +7,22 @@ import java.util.Objects;
  */
 public class Room implements IRoom {
     private final String number;
-    private final Double price;
+    private final long price;
     private final RoomType type;
 
     /**
      * Creates a room with the specified number, price and type.
      *
      * @param number the room number.
-     * @param price  the room price.
+     * @param price  the room price per night, in minor units (see {@link Money}).
      * @param type   the room type.
+     * @throws IllegalArgumentException if the price is negative.
      */
-    public Room(String number, Double price, RoomType type) {
+    public Room(String number, long price, RoomType type) throws IllegalArgumentException {
+        if (price < 0) {
+            throw new IllegalArgumentException("The room price cannot be negative.");
+        }
+
         this.number = number;
         this.price = price;
         this.type = type;
@@ -29,7 +34,7 @@ public class Room implements IRoom {
     }
 
     @Override
-    final public Double getPrice() {
+    final public long getPrice() {
         return price;
     }
 
@@ -40,7 +45,7 @@ public class Room implements IRoom {
 
     @Override
     final public boolean isFree() {
-        return price.equals(0.0);
+        return price == 0;
     }
 
     @Override
@@ -60,7 +65,7 @@ public class Room implements IRoom {
     public String toString() {
         String roomType = type.equals(RoomType.SINGLE) ? "Single" : "Double";
 
-        String formattedPrice = price == 0 ? "Free" : "$" + price;
+        String formattedPrice = price == 0 ? "Free" : "$" + Money.format(price);
 
         return "Room number: " + number + "; " + roomType + " bed room; Price: " + formattedPrice + ".";
     }
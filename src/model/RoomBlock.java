@@ -0,0 +1,23 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Represents a block of rooms that are free together for the same dates (e.g., for a group booking).
+ *
+ * @param dates          the check-in and check-out dates.
+ * @param requestedRooms the number of rooms requested.
+ * @param availableRooms the number of matching rooms that are free for the dates.
+ * @param rooms          the proposed rooms (the requested number of rooms with the closest room numbers), or an empty
+ *                       list if not enough rooms are free.
+ */
+public record RoomBlock(Dates dates, int requestedRooms, int availableRooms, List<IRoom> rooms) {
+    /**
+     * Check if enough rooms are free together.
+     *
+     * @return true if the block can be booked.
+     */
+    public boolean isAvailable() {
+        return availableRooms >= requestedRooms;
+    }
+}
@@ -0,0 +1,20 @@
+package model;
+
+import java.time.Instant;
+
+/**
+ * Represents a short-lived hold on a room: the room counts as occupied for the held dates until the hold is confirmed
+ * (and becomes a reservation), released or expires.
+ *
+ * @param id        the hold id.
+ * @param room      the held room.
+ * @param dates     the held check-in and check-out dates.
+ * @param expiresAt when the hold expires.
+ */
+public record RoomHold(long id, IRoom room, Dates dates, Instant expiresAt) {
+    @Override
+    public String toString() {
+        return "Room " + room.getNumber() + " is held from " + dates.checkIn() + " to " + dates.checkOut() + " until "
+                + expiresAt + ".";
+    }
+}
@@ -0,0 +1,24 @@
+package model;
+
+/**
+ * Represents the room search type of an availability search: all rooms, only paid rooms or only free rooms.
+ */
+public enum RoomSearchType {
+    ALL,
+    PAID,
+    FREE;
+
+    /**
+     * Get the room search type of a menu code.
+     *
+     * @param code A (all rooms), P (only paid room) or F (only free rooms), case-insensitive.
+     * @return the room search type (all rooms for any other code).
+     */
+    public static RoomSearchType fromCode(String code) {
+        return switch (code.toUpperCase()) {
+            case "P" -> PAID;
+            case "F" -> FREE;
+            default -> ALL;
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * Represents a booking against the allotment of a room type, before a concrete room is assigned to it.
+ */
+public record RoomTypeAllotment(Customer customer, RoomType type, Dates dates) {
+}
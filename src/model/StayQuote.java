@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * Represents the total price of a stay in a room.
+ *
+ * @param room       the room.
+ * @param dates      the check-in and check-out dates.
+ * @param totalPrice the total price of all the nights of the stay, in minor units (see {@link Money}).
+ */
+public record StayQuote(IRoom room, Dates dates, long totalPrice) {
+    @Override
+    public String toString() {
+        return room + " Total for " + dates.checkIn() + " to " + dates.checkOut() + ": $" + Money.format(totalPrice)
+                + ".";
+    }
+}
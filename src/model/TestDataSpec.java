@@ -0,0 +1,44 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Represents the size of a synthetic test dataset. The same spec (including the seed and the first night) always
+ * generates the same customers, rooms and reservations.
+ *
+ * @param customers    the number of customers.
+ * @param rooms        the number of rooms.
+ * @param reservations the number of reservations (spread over the rooms, never overlapping).
+ * @param seed         the random seed.
+ * @param firstNight   the first night that can be booked.
+ */
+public record TestDataSpec(int customers, int rooms, int reservations, long seed, LocalDate firstNight) {
+    /**
+     * Creates a test dataset spec.
+     *
+     * @throws IllegalArgumentException if a count is negative, or there are reservations but no customers or rooms.
+     */
+    public TestDataSpec {
+        if (customers < 0 || rooms < 0 || reservations < 0) {
+            throw new IllegalArgumentException("The test data counts cannot be negative.");
+        }
+
+        if (reservations > 0 && (customers == 0 || rooms == 0)) {
+            throw new IllegalArgumentException("Test reservations need at least one customer and one room.");
+        }
+    }
+
+    /**
+     * Get the default spec, read from the {@code hotel.testdata.customers} (1000 by default), {@code rooms} (200),
+     * {@code reservations} (2000) and {@code seed} (42) system properties, starting tonight.
+     *
+     * @return the default spec.
+     */
+    public static TestDataSpec getDefault() {
+        return new TestDataSpec(Integer.getInteger("hotel.testdata.customers", 1000),
+                Integer.getInteger("hotel.testdata.rooms", 200),
+                Integer.getInteger("hotel.testdata.reservations", 2000),
+                Long.getLong("hotel.testdata.seed", 42),
+                LocalDate.now());
+    }
+}
@@ -0,0 +1,35 @@
+package service;
+
+/**
+ * Availability kernels over primitive epoch-day arrays.
+ * <p>
+ * The overlap test is written without branches (the sign bits of the two differences are combined), so the loop
+ * body is a straight run of int subtractions, ANDs and ORs that the JIT compiler can unroll and auto-vectorize. It
+ * reads the stay arrays of the room snapshot in place, so a search allocates nothing per room.
+ */
+final class AvailabilityKernel {
+    private AvailabilityKernel() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Check if any stay overlaps the desired dates, i.e. existingCheckIn &lt; desiredCheckOut and desiredCheckIn &lt;
+     * existingCheckOut for some stay.
+     *
+     * @param checkIns        the check-in epoch days of the existing stays.
+     * @param checkOuts       the check-out epoch days of the existing stays.
+     * @param desiredCheckIn  the desired check-in epoch day.
+     * @param desiredCheckOut the desired check-out epoch day.
+     * @return true if at least one existing stay overlaps the desired dates.
+     */
+    static boolean hasConflict(int[] checkIns, int[] checkOuts, int desiredCheckIn, int desiredCheckOut) {
+        int conflicts = 0;
+
+        for (int index = 0; index < checkIns.length; index++) {
+            // Epoch days are far from the int limits, so the differences cannot overflow.
+            conflicts |= (checkIns[index] - desiredCheckOut) & (desiredCheckIn - checkOuts[index]);
+        }
+
+        return conflicts < 0;
+    }
+}
@@ -0,0 +1,47 @@
+package service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event for one {@link ReservationService#findAvailableRooms} call, with the time spent filtering
+ * the rooms by search type and scanning their reservations.
+ */
+@Name("hotel.AvailabilitySearch")
+@Label("Availability Search")
+@Category({"Hotel", "Reservation Service"})
+@Description("Search for the rooms available on a date range")
+final class AvailabilitySearchEvent extends jdk.jfr.Event {
+    @Label("Search Type")
+    String searchType;
+
+    @Label("Check-in Epoch Day")
+    long checkInDay;
+
+    @Label("Nights")
+    int nights;
+
+    @Label("Rooms Scanned")
+    int roomsScanned;
+
+    @Label("Reservations Examined")
+    @Description("-1 if the recording started during the search, so the reservations were not counted")
+    long reservationsExamined;
+
+    @Label("Result Size")
+    int resultSize;
+
+    @Label("Parallel")
+    boolean parallel;
+
+    @Label("Filter Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long filterDuration;
+
+    @Label("Scan Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long scanDuration;
+}
@@ -0,0 +1,164 @@
+package service;
+
+import model.IRoom;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Fork/join task that finds the available rooms in a slice of a room list.
+ * <p>
+ * Slices larger than the threshold are split in two. Each leaf checks its rooms with the {@link AvailabilityKernel}
+ * directly over the stay arrays of the snapshot (no per-search copies) and fills its own list; the lists are
+ * concatenated left to right, so the result keeps the order of the room list without any shared collection.
+ * <p>
+ * A search with a limit stops once it found that many rooms: a leaf stops reading rooms at the limit, and a task whose
+ * left half already found enough rooms drops its right half.
+ * <p>
+ * A cancelled search (or a task running on an interrupted thread) stops reading rooms and throws a
+ * {@link CancellationException}, so a cancelled asynchronous search does not keep scanning.
+ */
+final class AvailabilitySearchTask extends RecursiveTask<List<IRoom>> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int CANCELLATION_CHECK_MASK = 1023;
+
+    private final List<IRoom> rooms;
+    private final int from;
+    private final int to;
+    private final int desiredCheckIn;
+    private final int desiredCheckOut;
+    private final Function<IRoom, RoomStays> roomToStays;
+    private final int threshold;
+    private final int limit;
+    private final LongAdder reservationsExamined;
+    private final AvailabilitySearchTask root;
+
+    /**
+     * Creates a task for the rooms in [from, to).
+     *
+     * @param rooms                the rooms, in the order of the result.
+     * @param from                 the first room index.
+     * @param to                   the last room index (exclusive).
+     * @param desiredCheckIn       the desired check-in epoch day.
+     * @param desiredCheckOut      the desired check-out epoch day.
+     * @param roomToStays          gets the stays of a room.
+     * @param threshold            the maximum number of rooms a task searches without splitting.
+     * @param limit                the maximum number of available rooms to find.
+     * @param reservationsExamined counts the reservations checked by the leaves, or null to skip counting.
+     */
+    AvailabilitySearchTask(List<IRoom> rooms, int from, int to, int desiredCheckIn, int desiredCheckOut,
+                           Function<IRoom, RoomStays> roomToStays, int threshold, int limit,
+                           LongAdder reservationsExamined) {
+        this.rooms = rooms;
+        this.from = from;
+        this.to = to;
+        this.desiredCheckIn = desiredCheckIn;
+        this.desiredCheckOut = desiredCheckOut;
+        this.roomToStays = roomToStays;
+        this.threshold = threshold;
+        this.limit = limit;
+        this.reservationsExamined = reservationsExamined;
+        this.root = this;
+    }
+
+    /**
+     * Creates the subtask for the rooms in [from, to) of a parent task.
+     *
+     * @param parent the parent task.
+     * @param from   the first room index.
+     * @param to     the last room index (exclusive).
+     */
+    private AvailabilitySearchTask(AvailabilitySearchTask parent, int from, int to) {
+        this.rooms = parent.rooms;
+        this.from = from;
+        this.to = to;
+        this.desiredCheckIn = parent.desiredCheckIn;
+        this.desiredCheckOut = parent.desiredCheckOut;
+        this.roomToStays = parent.roomToStays;
+        this.threshold = parent.threshold;
+        this.limit = parent.limit;
+        this.reservationsExamined = parent.reservationsExamined;
+        this.root = parent.root;
+    }
+
+    @Override
+    protected List<IRoom> compute() {
+        checkCancelled();
+
+        if (to - from <= threshold) {
+            return computeSequentially();
+        }
+
+        int middle = (from + to) >>> 1;
+        AvailabilitySearchTask left = new AvailabilitySearchTask(this, from, middle);
+        AvailabilitySearchTask right = new AvailabilitySearchTask(this, middle, to);
+
+        right.fork();
+        List<IRoom> availableRooms = left.compute();
+
+        if (availableRooms.size() >= limit) {
+            if (!right.tryUnfork()) {
+                right.cancel(false);
+            }
+
+            return availableRooms;
+        }
+
+        availableRooms.addAll(right.join());
+
+        if (availableRooms.size() > limit) {
+            availableRooms.subList(limit, availableRooms.size()).clear();
+        }
+
+        return availableRooms;
+    }
+
+    /**
+     * Find the available rooms of the slice on the current thread.
+     *
+     * @return the available rooms, in the order of the room list (at most the limit).
+     */
+    List<IRoom> computeSequentially() {
+        List<IRoom> availableRooms = new ArrayList<>();
+        long stays = 0;
+
+        for (int index = from; index < to && availableRooms.size() < limit; index++) {
+            if ((index & CANCELLATION_CHECK_MASK) == 0) {
+                checkCancelled();
+            }
+
+            IRoom room = rooms.get(index);
+            RoomStays roomStays = roomToStays.apply(room);
+            stays += roomStays.checkIns().length;
+
+            if (!AvailabilityKernel.hasConflict(roomStays.checkIns(), roomStays.checkOuts(), desiredCheckIn,
+                    desiredCheckOut)) {
+                availableRooms.add(room);
+            }
+        }
+
+        if (reservationsExamined != null) {
+            reservationsExamined.add(stays);
+        }
+
+        return availableRooms;
+    }
+
+    /**
+     * Stop the search if the whole search was cancelled.
+     *
+     * @throws CancellationException if the search was cancelled or the current thread is interrupted.
+     */
+    private void checkCancelled() throws CancellationException {
+        if (root.isCancelled() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The availability search was cancelled.");
+        }
+    }
+}
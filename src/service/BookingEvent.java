@@ -0,0 +1,31 @@
+package service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event for one booking in the {@link ReservationService} (a room or a room type allotment).
+ */
+@Name("hotel.Booking")
+@Label("Booking")
+@Category({"Hotel", "Reservation Service"})
+@Description("Reservation of a room or of a room type allotment")
+final class BookingEvent extends jdk.jfr.Event {
+    @Label("Room Number")
+    String roomNumber;
+
+    @Label("Room Type")
+    String roomType;
+
+    @Label("Check-in Epoch Day")
+    long checkInDay;
+
+    @Label("Nights")
+    int nights;
+
+    @Label("Room Reservations")
+    @Description("Reservations of the room after the booking")
+    int roomReservations;
+}
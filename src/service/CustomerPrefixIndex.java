@@ -0,0 +1,94 @@
+package service;
+
+import model.Customer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted prefix index over the customers normalized last name, first name and e-mail.
+ * <p>
+ * Each customer is stored once per indexed term under the key "term\0email", so a prefix lookup is a range query on
+ * the sorted map (logarithmic to find the first match, then proportional to the number of results read). The map is a
+ * concurrent skip list so sign-ups can index customers while type-ahead searches run.
+ */
+final class CustomerPrefixIndex {
+    private static final char SEPARATOR = '\u0000';
+    private static final char MAX_CHAR = '\uffff';
+
+    private final NavigableMap<String, Customer> termToCustomer;
+
+    CustomerPrefixIndex() {
+        termToCustomer = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Normalize a term (or a prefix) before it is indexed or searched.
+     *
+     * @param term the term.
+     * @return the trimmed lower case term.
+     */
+    static String normalize(String term) {
+        return term == null ? "" : term.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index a customer by last name, first name and e-mail.
+     *
+     * @param customer the customer.
+     */
+    void add(Customer customer) {
+        for (String key : getKeys(customer)) {
+            termToCustomer.put(key, customer);
+        }
+    }
+
+    /**
+     * Search the customers whose last name, first name or e-mail start with the prefix.
+     *
+     * @param prefix the prefix (case-insensitive).
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers, ordered by the matching term.
+     */
+    List<Customer> search(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+
+        if (normalizedPrefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Set<Customer> customers = new LinkedHashSet<>();
+
+        for (Customer customer : termToCustomer.subMap(normalizedPrefix, true, normalizedPrefix + MAX_CHAR, true)
+                .values()) {
+            customers.add(customer);
+
+            if (customers.size() == limit) {
+                break;
+            }
+        }
+
+        return new ArrayList<>(customers);
+    }
+
+    /**
+     * Get the index keys of a customer.
+     *
+     * @param customer the customer.
+     * @return the index keys.
+     */
+    private static String[] getKeys(Customer customer) {
+        String email = normalize(customer.getEmail());
+
+        return new String[]{
+                normalize(customer.getLastName()) + SEPARATOR + email,
+                normalize(customer.getFirstName()) + SEPARATOR + email,
+                email + SEPARATOR + email
+        };
+    }
+}
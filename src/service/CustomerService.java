@@ -1,27 +1,42 @@
 package service;
 
 import model.Customer;
+import model.TestDataSpec;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 
 /**
  * Communicates with the resources to build the business logic necessary to provide feedback to the UI.
  * <p>
  * Stateful service (remembers things for the project) that uses Collections to manage information. As such, there's
  * only one of each service (Singleton).
+ * <p>
+ * Customers are kept on the heap by default. Start the application with {@code -Dhotel.customer.store=off-heap} to keep
+ * the customer records outside the heap instead (see {@link OffHeapCustomerStore}).
  */
 final public class CustomerService {
+    private static final String[] TEST_FIRST_NAMES = {"Jeff", "Mike", "Shaun", "Sally", "Cesar", "Ana", "Li", "Priya",
+            "Omar", "Emma", "Noah", "Mia", "Lucas", "Sofia", "Hugo", "Yuki"};
+    private static final String[] TEST_LAST_NAMES = {"Philips", "Silva", "Smith", "Garcia", "Chen", "Kumar", "Muller",
+            "Rossi", "Dubois", "Sato", "Nowak", "Jensen", "Costa", "Ahmed", "Brown", "Kim"};
+
     private static CustomerService instance;
 
-    private final Map<String, Customer> emailToCustomer;
+    private final CustomerStore customerStore;
+    private final ReplicationService replicationService;
 
     private CustomerService() {
-        emailToCustomer = new HashMap<>();
+        replicationService = ReplicationService.getInstance();
+        customerStore = "off-heap".equals(System.getProperty("hotel.customer.store"))
+                ? new OffHeapCustomerStore()
+                : new HeapCustomerStore();
     }
 
-    public static CustomerService getInstance() {
+    public static synchronized CustomerService getInstance() {
         if (instance == null) {
             instance = new CustomerService();
         }
@@ -36,29 +51,70 @@ final public class CustomerService {
      * @return a customer.
      */
     public Customer getCustomer(String email) {
-        return emailToCustomer.get(email);
+        return email == null ? null : customerStore.get(toEmailKey(email));
     }
 
     /**
-     * Get all customers.
+     * Check if a customer e-mail is already registered (case-insensitive).
+     *
+     * @param email the customer e-mail.
+     * @return true if a customer with that e-mail exists.
+     */
+    public boolean exists(String email) {
+        return email != null && customerStore.containsKey(toEmailKey(email));
+    }
+
+    /**
+     * Get all customers (from an immutable point-in-time snapshot with the default heap store).
      *
      * @return all customers.
      */
     public List<Customer> getAllCustomers() {
-        return emailToCustomer.values().stream().toList();
+        return customerStore.values();
+    }
+
+    /**
+     * Search the customers whose last name, first name or e-mail start with the prefix (case-insensitive).
+     *
+     * @param prefix the prefix.
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers.
+     */
+    public List<Customer> searchCustomers(String prefix, int limit) {
+        return customerStore.search(prefix, limit);
     }
 
     /**
-     * Add customers test data.
+     * Add customers test data: customer i is guest{i}@example.com with a name drawn from the seed, so the same spec
+     * always generates the same customers. The customers are generated in parallel, then registered in one sequential
+     * pass in index order, so the same spec always leaves the same store (and replication log).
+     *
+     * @param spec the test dataset spec.
+     * @return the test customers, by index (the already registered customer when an e-mail was in use).
+     * @throws IllegalStateException if this server is a read-only replica.
      */
-    public void addTestData() {
-        addCustomer("j@gmail.com", "Jeff", "Philips");
-        addCustomer("mike@email.com", "Mike", "Philips");
-        addCustomer("shaun@email.com", "Shaun", "Philips");
-        addCustomer("sally@email.com", "Sally", "Philips");
-        addCustomer("cesar@email.com", "Cesar", "Philips");
-
-        System.out.println("Customers: " + emailToCustomer);
+    public List<Customer> addTestData(TestDataSpec spec) throws IllegalStateException {
+        replicationService.checkWritable();
+
+        List<Customer> generatedCustomers = IntStream.range(0, spec.customers()).parallel()
+                .mapToObj(index -> {
+                    SplittableRandom random = new SplittableRandom(spec.seed() ^ (index * 0x9E3779B97F4A7C15L));
+
+                    return new Customer(TEST_FIRST_NAMES[random.nextInt(TEST_FIRST_NAMES.length)],
+                            TEST_LAST_NAMES[random.nextInt(TEST_LAST_NAMES.length)], "guest" + index + "@example.com");
+                })
+                .toList();
+        List<Customer> customers = new ArrayList<>(generatedCustomers.size());
+
+        for (Customer customer : generatedCustomers) {
+            storeCustomer(customer);
+            customers.add(getCustomer(customer.getEmail()));
+        }
+
+        System.out.println("Customers: " + customers.size() + " test customers (" + customerStore.size()
+                + " in total).");
+
+        return customers;
     }
 
     /**
@@ -67,10 +123,57 @@ final public class CustomerService {
      * @param email     the customer e-mail.
      * @param firstName the customer first name.
      * @param lastName  the customer last name.
+     * @throws IllegalArgumentException if the e-mail format is invalid or the e-mail is already in use.
+     * @throws IllegalStateException    if this server is a read-only replica.
      */
-    public void addCustomer(String email, String firstName, String lastName) {
-        Customer customer = new Customer(firstName, lastName, email);
+    public void addCustomer(String email, String firstName, String lastName)
+            throws IllegalArgumentException, IllegalStateException {
+        if (!registerCustomer(email, firstName, lastName)) {
+            throw new IllegalArgumentException("That customer e-mail is already in use.");
+        }
+    }
 
-        emailToCustomer.put(email, customer);
+    /**
+     * Register a customer if no customer uses the e-mail yet (case-insensitive). The check and the registration are one
+     * atomic step, so concurrent sign-ups with the same e-mail never overwrite each other.
+     *
+     * @param email     the customer e-mail.
+     * @param firstName the customer first name.
+     * @param lastName  the customer last name.
+     * @return true if the customer was registered, false if the e-mail is already in use.
+     * @throws IllegalArgumentException if the e-mail format is invalid.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public boolean registerCustomer(String email, String firstName, String lastName)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
+
+        return storeCustomer(new Customer(firstName, lastName, email));
+    }
+
+    /**
+     * Store a customer if the e-mail is not in use yet, and record it for the replicas.
+     *
+     * @param customer the customer.
+     * @return true if the customer was stored, false if the e-mail is already in use.
+     */
+    private boolean storeCustomer(Customer customer) {
+        if (!customerStore.putIfAbsent(toEmailKey(customer.getEmail()), customer)) {
+            return false;
+        }
+
+        replicationService.recordCustomer(customer);
+
+        return true;
+    }
+
+    /**
+     * Get the normalized (trimmed, lower case) e-mail used as the customer key.
+     *
+     * @param email the customer e-mail.
+     * @return the e-mail key.
+     */
+    private static String toEmailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 }
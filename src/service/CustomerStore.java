@@ -0,0 +1,58 @@
+package service;
+
+import model.Customer;
+
+import java.util.List;
+
+/**
+ * Storage backend of the {@link CustomerService}, keyed by the normalized customer e-mail.
+ */
+interface CustomerStore {
+    /**
+     * Get a customer.
+     *
+     * @param emailKey the normalized customer e-mail.
+     * @return the customer, or null if no customer uses that e-mail.
+     */
+    Customer get(String emailKey);
+
+    /**
+     * Check if a customer uses the e-mail.
+     *
+     * @param emailKey the normalized customer e-mail.
+     * @return true if a customer uses that e-mail.
+     */
+    boolean containsKey(String emailKey);
+
+    /**
+     * Store a customer if no customer uses the e-mail yet, as one atomic step.
+     *
+     * @param emailKey the normalized customer e-mail.
+     * @param customer the customer.
+     * @return true if the customer was stored.
+     */
+    boolean putIfAbsent(String emailKey, Customer customer);
+
+    /**
+     * Get all customers.
+     *
+     * @return all customers.
+     */
+    List<Customer> values();
+
+    /**
+     * Search the customers whose last name, first name or e-mail start with the prefix (case-insensitive).
+     *
+     * @param prefix the prefix.
+     * @param limit  the maximum number of customers to return.
+     * @return the matching customers.
+     */
+    List<Customer> search(String prefix, int limit);
+
+    /**
+     * Get the number of customers.
+     *
+     * @return the number of customers.
+     */
+    int size();
+}
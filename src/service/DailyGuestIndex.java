@@ -0,0 +1,192 @@
+package service;
+
+import model.Reservation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Day-bucketed index of the reservations across all rooms: who arrives, who departs and who is in house on each day.
+ * <p>
+ * Every reservation is added to the bucket of its check-in day (arrival) and of its check-out day (departure), so a
+ * daily report reads one bucket and costs time proportional to that day's activity, not to the reservation history.
+ * In-house stays are read as intervals from the arrivals: a stay is in house on [fromDay, toDay) if it arrived before
+ * toDay and departs after fromDay, and no stay is longer than the longest one indexed, so only the arrival buckets of
+ * [fromDay - longest stay, toDay) are read. The buckets are kept in a concurrent sorted map by epoch day, so reports
+ * can run while bookings are added.
+ */
+final class DailyGuestIndex {
+    private static final Comparator<Reservation> BY_ROOM_NUMBER =
+            Comparator.comparing((Reservation reservation) -> reservation.getRoom().getNumber())
+                    .thenComparing(Reservation::getCheckIn);
+
+    private final NavigableMap<Long, DayBucket> dayToBucket;
+    private volatile long longestStayNights;
+
+    DailyGuestIndex() {
+        dayToBucket = new ConcurrentSkipListMap<>();
+    }
+
+    /**
+     * Index a reservation.
+     *
+     * @param reservation the reservation.
+     */
+    void add(Reservation reservation) {
+        long checkIn = reservation.getCheckIn().toEpochDay();
+        long checkOut = reservation.getCheckOut().toEpochDay();
+
+        longestStayNights = Math.max(longestStayNights, checkOut - checkIn);
+        getBucket(checkIn).arrivals.add(reservation);
+        getBucket(checkOut).departures.add(reservation);
+    }
+
+    /**
+     * Index many reservations at once (e.g., a bulk load). The entries of each day are counted first, so the buckets
+     * created here are sized up front instead of growing one reservation at a time.
+     *
+     * @param reservations the reservations.
+     */
+    void addAll(List<Reservation> reservations) {
+        Map<Long, int[]> dayToCount = new HashMap<>();
+
+        for (Reservation reservation : reservations) {
+            dayToCount.computeIfAbsent(reservation.getCheckIn().toEpochDay(), key -> new int[1])[0]++;
+            dayToCount.computeIfAbsent(reservation.getCheckOut().toEpochDay(), key -> new int[1])[0]++;
+        }
+
+        dayToCount.forEach((day, count) -> dayToBucket.computeIfAbsent(day, key -> new DayBucket(count[0])));
+
+        for (Reservation reservation : reservations) {
+            add(reservation);
+        }
+    }
+
+    /**
+     * Remove reservations from the index (e.g., once they are archived), dropping the buckets left empty. The other
+     * reservations of the same days stay indexed.
+     *
+     * @param reservations the reservations to remove.
+     */
+    void removeAll(List<Reservation> reservations) {
+        for (Reservation reservation : reservations) {
+            long checkIn = reservation.getCheckIn().toEpochDay();
+            long checkOut = reservation.getCheckOut().toEpochDay();
+
+            DayBucket arrivalBucket = dayToBucket.get(checkIn);
+
+            if (arrivalBucket != null) {
+                arrivalBucket.arrivals.remove(reservation);
+                removeIfEmpty(checkIn, arrivalBucket);
+            }
+
+            DayBucket departureBucket = dayToBucket.get(checkOut);
+
+            if (departureBucket != null) {
+                departureBucket.departures.remove(reservation);
+                removeIfEmpty(checkOut, departureBucket);
+            }
+        }
+    }
+
+    /**
+     * Get the reservations that check in on a day.
+     *
+     * @param day the epoch day.
+     * @return the arrivals, sorted by room number.
+     */
+    List<Reservation> getArrivals(long day) {
+        DayBucket bucket = dayToBucket.get(day);
+
+        return bucket == null ? List.of() : sort(bucket.arrivals);
+    }
+
+    /**
+     * Get the reservations that check out on a day.
+     *
+     * @param day the epoch day.
+     * @return the departures, sorted by room number.
+     */
+    List<Reservation> getDepartures(long day) {
+        DayBucket bucket = dayToBucket.get(day);
+
+        return bucket == null ? List.of() : sort(bucket.departures);
+    }
+
+    /**
+     * Get the reservations that are in house on at least one night in [fromDay, toDay).
+     *
+     * @param fromDay the first night (epoch day).
+     * @param toDay   the day after the last night (epoch day, exclusive).
+     * @return the in-house reservations, sorted by room number.
+     */
+    List<Reservation> getInHouse(long fromDay, long toDay) {
+        if (fromDay >= toDay) {
+            return List.of();
+        }
+
+        Set<Reservation> reservations = new LinkedHashSet<>();
+
+        // A stay that arrived more than the longest stay before fromDay has already departed.
+        for (DayBucket bucket : dayToBucket.subMap(fromDay - longestStayNights, false, toDay, false).values()) {
+            for (Reservation reservation : bucket.arrivals) {
+                if (reservation.getCheckOut().toEpochDay() > fromDay) {
+                    reservations.add(reservation);
+                }
+            }
+        }
+
+        return sort(reservations);
+    }
+
+    private DayBucket getBucket(long day) {
+        return dayToBucket.computeIfAbsent(day, key -> new DayBucket());
+    }
+
+    /**
+     * Drop a bucket that has no arrival and no departure left (the index is only changed under the reservation
+     * service lock, so no reservation is added to it meanwhile).
+     */
+    private void removeIfEmpty(long day, DayBucket bucket) {
+        if (bucket.arrivals.isEmpty() && bucket.departures.isEmpty()) {
+            dayToBucket.remove(day, bucket);
+        }
+    }
+
+    private static List<Reservation> sort(Set<Reservation> reservations) {
+        List<Reservation> sortedReservations = new ArrayList<>(reservations);
+        sortedReservations.sort(BY_ROOM_NUMBER);
+
+        return sortedReservations;
+    }
+
+    /**
+     * The reservations that arrive and depart on one day.
+     */
+    private static final class DayBucket {
+        private final Set<Reservation> arrivals;
+        private final Set<Reservation> departures;
+
+        DayBucket() {
+            this(16);
+        }
+
+        /**
+         * Creates a bucket sized for an expected number of arrivals and departures that day.
+         *
+         * @param expectedSize the expected number of arrivals and departures.
+         */
+        DayBucket(int expectedSize) {
+            arrivals = ConcurrentHashMap.newKeySet(Math.max(16, expectedSize / 2));
+            departures = ConcurrentHashMap.newKeySet(Math.max(16, expectedSize / 2));
+        }
+    }
+}
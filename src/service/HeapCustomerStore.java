@@ -0,0 +1,66 @@
+package service;
+
+import model.Customer;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Default customer store: customers live on the heap in a concurrent map, with a prefix index for type-ahead search
+ * and an immutable snapshot for reports.
+ */
+final class HeapCustomerStore implements CustomerStore {
+    private final ConcurrentMap<String, Customer> emailToCustomer;
+    private final CustomerPrefixIndex customerPrefixIndex;
+    private final AtomicReference<PersistentHashMap<String, Customer>> customersSnapshot;
+
+    HeapCustomerStore() {
+        emailToCustomer = new ConcurrentHashMap<>();
+        customerPrefixIndex = new CustomerPrefixIndex();
+        customersSnapshot = new AtomicReference<>(PersistentHashMap.empty());
+    }
+
+    @Override
+    public Customer get(String emailKey) {
+        return emailToCustomer.get(emailKey);
+    }
+
+    @Override
+    public boolean containsKey(String emailKey) {
+        return emailToCustomer.containsKey(emailKey);
+    }
+
+    @Override
+    public boolean putIfAbsent(String emailKey, Customer customer) {
+        if (emailToCustomer.putIfAbsent(emailKey, customer) != null) {
+            return false;
+        }
+
+        customerPrefixIndex.add(customer);
+        customersSnapshot.updateAndGet(current -> current.plus(emailKey, customer));
+
+        return true;
+    }
+
+    /**
+     * Get all customers, from an immutable point-in-time snapshot that new sign-ups do not affect.
+     *
+     * @return all customers.
+     */
+    @Override
+    public List<Customer> values() {
+        return customersSnapshot.get().values();
+    }
+
+    @Override
+    public List<Customer> search(String prefix, int limit) {
+        return customerPrefixIndex.search(prefix, limit);
+    }
+
+    @Override
+    public int size() {
+        return emailToCustomer.size();
+    }
+}
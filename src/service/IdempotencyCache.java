@@ -0,0 +1,128 @@
+package service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-expiring table of recent request keys and their outcomes.
+ * <p>
+ * Entries are kept in insertion order, so the oldest entry is always at the head: expired entries are dropped from the
+ * head on every call, and the oldest completed entry is evicted when the table is full. Memory therefore stays bounded
+ * by the maximum number of entries (plus the requests still running) no matter how many retries arrive. A retry that
+ * arrives while the first request is still running waits for its outcome instead of running the operation again.
+ * <p>
+ * Each key also remembers a fingerprint of its request, so a client that reuses a key for a different request gets an
+ * error instead of the outcome of the first one.
+ *
+ * @param <V> the outcome type.
+ */
+final class IdempotencyCache<V> {
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<String, Entry<V>> keyToEntry;
+
+    /**
+     * Creates a table with the specified limits.
+     *
+     * @param maxEntries      the maximum number of remembered keys.
+     * @param timeToLiveNanos how long a key is remembered, in nanoseconds.
+     */
+    IdempotencyCache(int maxEntries, long timeToLiveNanos) {
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLiveNanos;
+        this.keyToEntry = new LinkedHashMap<>();
+    }
+
+    /**
+     * Run an operation once per key: the first call runs it and remembers its outcome (result or exception), calls
+     * with the same key return (or throw) that outcome until it expires.
+     *
+     * @param key         the idempotency key.
+     * @param fingerprint the fingerprint of the request (e.g., its parameters).
+     * @param operation   the operation.
+     * @return the outcome of the first call with that key.
+     * @throws IllegalArgumentException if the key was already used for a request with another fingerprint.
+     * @throws RuntimeException         the exception thrown by the first call with that key.
+     */
+    V getOrRun(String key, String fingerprint, Supplier<V> operation)
+            throws IllegalArgumentException, RuntimeException {
+        CompletableFuture<V> outcome;
+        boolean isFirstCall = false;
+
+        synchronized (keyToEntry) {
+            long now = System.nanoTime();
+            removeExpired(now);
+
+            Entry<V> entry = keyToEntry.get(key);
+
+            if (entry != null && !entry.fingerprint().equals(fingerprint)) {
+                throw new IllegalArgumentException("That idempotency key was already used for another request.");
+            }
+
+            if (entry == null) {
+                if (keyToEntry.size() >= maxEntries) {
+                    removeOldestCompleted();
+                }
+
+                entry = new Entry<>(now, fingerprint, new CompletableFuture<>());
+                keyToEntry.put(key, entry);
+                isFirstCall = true;
+            }
+
+            outcome = entry.outcome();
+        }
+
+        if (isFirstCall) {
+            try {
+                outcome.complete(operation.get());
+            } catch (RuntimeException | Error e) {
+                outcome.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return outcome.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Drop the expired entries (all at the head, since entries are kept in insertion order).
+     *
+     * @param now the current {@link System#nanoTime()}.
+     */
+    private void removeExpired(long now) {
+        Iterator<Map.Entry<String, Entry<V>>> iterator = keyToEntry.entrySet().iterator();
+
+        while (iterator.hasNext() && now - iterator.next().getValue().createdAt() > timeToLiveNanos) {
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Drop the oldest entry whose request completed. The requests still running keep their entry, so their retries
+     * still wait for them; the table goes over its limit if they all are.
+     */
+    private void removeOldestCompleted() {
+        Iterator<Entry<V>> iterator = keyToEntry.values().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().outcome().isDone()) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private record Entry<V>(long createdAt, String fingerprint, CompletableFuture<V> outcome) {
+    }
+}
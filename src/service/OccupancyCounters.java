@@ -0,0 +1,62 @@
+package service;
+
+import model.RoomType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Materialized occupied-room counters per night and room type.
+ * <p>
+ * Each night has one atomic counter per room type, kept in a concurrent hash map by epoch day. Booking a stay (a
+ * reservation, a hold or a room type allotment) adds one to the counter of its type on each of its nights, and a hold
+ * that expires or is released adds minus one, so reading the occupancy of a night is a single lookup and a dashboard of
+ * n nights costs O(n), whatever the number of reservations.
+ */
+final class OccupancyCounters {
+    private static final int TYPE_COUNT = RoomType.values().length;
+
+    private final Map<Long, AtomicIntegerArray> dayToOccupiedRooms;
+
+    OccupancyCounters() {
+        dayToOccupiedRooms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Add a delta to the occupied rooms of a type on every night in [fromDay, toDay).
+     *
+     * @param type    the room type.
+     * @param fromDay the first night (epoch day).
+     * @param toDay   the check-out day (epoch day, exclusive).
+     * @param delta   1 for a new stay, -1 for a stay that gives its nights back.
+     */
+    void add(RoomType type, long fromDay, long toDay, int delta) {
+        for (long day = fromDay; day < toDay; day++) {
+            dayToOccupiedRooms.computeIfAbsent(day, key -> new AtomicIntegerArray(TYPE_COUNT))
+                    .addAndGet(type.ordinal(), delta);
+        }
+    }
+
+    /**
+     * Get the number of occupied rooms of a type on a night.
+     *
+     * @param type the room type.
+     * @param day  the night (epoch day).
+     * @return the number of occupied rooms.
+     */
+    int get(RoomType type, long day) {
+        AtomicIntegerArray occupiedRooms = dayToOccupiedRooms.get(day);
+
+        return occupiedRooms == null ? 0 : occupiedRooms.get(type.ordinal());
+    }
+
+    /**
+     * Drop the counters of the nights before a cutoff day (e.g., once their reservations are archived).
+     *
+     * @param cutoffDay the first night to keep (epoch day).
+     */
+    void removeBefore(long cutoffDay) {
+        dayToOccupiedRooms.keySet().removeIf(day -> day < cutoffDay);
+    }
+}
@@ -0,0 +1,565 @@
+package service;
+
+import model.Customer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Customer store that keeps the customer records outside the Java heap, so the heap footprint stays flat no matter how
+ * many customers are registered.
+ * <p>
+ * Records (normalized e-mail, e-mail, first name, last name, normalized last name and normalized first name as
+ * length-prefixed UTF-8) are appended to direct buffer pages. An open-addressing hash table, also in direct buffers,
+ * maps the e-mail hash to the record address (linear probing, doubled when 70% full). {@link Customer} objects are only
+ * materialized when they are returned.
+ * <p>
+ * The prefix index for {@link #search(String, int)} is kept off-heap too, as sorted runs of term references (a record
+ * address tagged with the indexed term: last name, first name or e-mail, normalized like {@link CustomerPrefixIndex}).
+ * New references are inserted in a small sorted buffer; a full buffer becomes a run, and runs of equal length are
+ * merged, so there are at most log2(N) runs and each reference is moved O(log N) times. A search binary searches every
+ * run for the prefix, merges the matching ranges in term order and only decodes the matching customers.
+ */
+final class OffHeapCustomerStore implements CustomerStore {
+    private static final int PAGE_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_FIELD_LENGTH = 0xFFFF;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final double MAX_LOAD = 0.7;
+    private static final int EMAIL_KEY_FIELD = 0;
+    private static final int[] TERM_FIELDS = {4, 5, EMAIL_KEY_FIELD};
+    private static final int TERM_SHIFT = 62;
+    private static final long ADDRESS_MASK = (1L << TERM_SHIFT) - 1;
+    private static final int TERM_BUFFER_ENTRIES = 256;
+
+    private final ReadWriteLock lock;
+    private final List<ByteBuffer> pages;
+    private ByteBuffer slotAddresses;
+    private ByteBuffer slotHashes;
+    private int slotCount;
+    private int size;
+    private final ByteBuffer termBuffer;
+    private int termBufferSize;
+    private final List<ByteBuffer> termRuns;
+
+    OffHeapCustomerStore() {
+        lock = new ReentrantReadWriteLock();
+        pages = new ArrayList<>();
+        slotCount = INITIAL_SLOTS;
+        slotAddresses = ByteBuffer.allocateDirect(slotCount * Long.BYTES);
+        slotHashes = ByteBuffer.allocateDirect(slotCount * Integer.BYTES);
+        termBuffer = ByteBuffer.allocateDirect(TERM_BUFFER_ENTRIES * Long.BYTES);
+        termRuns = new ArrayList<>();
+    }
+
+    @Override
+    public Customer get(String emailKey) {
+        byte[] keyBytes = emailKey.getBytes(StandardCharsets.UTF_8);
+
+        lock.readLock().lock();
+        try {
+            long address = slotAddresses.getLong(findSlot(keyBytes, hash(keyBytes)) * Long.BYTES);
+
+            return address == 0 ? null : readCustomer(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String emailKey) {
+        byte[] keyBytes = emailKey.getBytes(StandardCharsets.UTF_8);
+
+        lock.readLock().lock();
+        try {
+            return slotAddresses.getLong(findSlot(keyBytes, hash(keyBytes)) * Long.BYTES) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean putIfAbsent(String emailKey, Customer customer) {
+        byte[][] fields = {
+                emailKey.getBytes(StandardCharsets.UTF_8),
+                customer.getEmail().getBytes(StandardCharsets.UTF_8),
+                customer.getFirstName().getBytes(StandardCharsets.UTF_8),
+                customer.getLastName().getBytes(StandardCharsets.UTF_8),
+                CustomerPrefixIndex.normalize(customer.getLastName()).getBytes(StandardCharsets.UTF_8),
+                CustomerPrefixIndex.normalize(customer.getFirstName()).getBytes(StandardCharsets.UTF_8)
+        };
+
+        for (byte[] field : fields) {
+            if (field.length > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("Customer fields cannot be longer than 65535 bytes.");
+            }
+        }
+
+        int hash = hash(fields[0]);
+
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(fields[0], hash);
+
+            if (slotAddresses.getLong(slot * Long.BYTES) != 0) {
+                return false;
+            }
+
+            if (size + 1 > slotCount * MAX_LOAD) {
+                resize();
+                slot = findSlot(fields[0], hash);
+            }
+
+            long address = appendRecord(fields);
+
+            slotAddresses.putLong(slot * Long.BYTES, address);
+            slotHashes.putInt(slot * Integer.BYTES, hash);
+            size++;
+
+            for (int term = 0; term < TERM_FIELDS.length; term++) {
+                addTermReference(((long) term << TERM_SHIFT) | address);
+            }
+
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> values() {
+        lock.readLock().lock();
+        try {
+            List<Customer> customers = new ArrayList<>(size);
+
+            for (int slot = 0; slot < slotCount; slot++) {
+                long address = slotAddresses.getLong(slot * Long.BYTES);
+
+                if (address != 0) {
+                    customers.add(readCustomer(address));
+                }
+            }
+
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Customer> search(String prefix, int limit) {
+        String normalizedPrefix = CustomerPrefixIndex.normalize(prefix);
+
+        if (normalizedPrefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        byte[] prefixBytes = normalizedPrefix.getBytes(StandardCharsets.UTF_8);
+
+        lock.readLock().lock();
+        try {
+            // One cursor per sorted run (and the buffer), each at its first reference whose term has the prefix.
+            List<ByteBuffer> runs = new ArrayList<>();
+            List<Integer> runSizes = new ArrayList<>();
+
+            runs.add(termBuffer);
+            runSizes.add(termBufferSize);
+
+            for (ByteBuffer run : termRuns) {
+                if (run != null) {
+                    runs.add(run);
+                    runSizes.add(run.capacity() / Long.BYTES);
+                }
+            }
+
+            int[] cursors = new int[runs.size()];
+
+            for (int run = 0; run < cursors.length; run++) {
+                cursors[run] = findFirstTerm(runs.get(run), runSizes.get(run), prefixBytes);
+            }
+
+            Set<Long> addresses = new LinkedHashSet<>();
+
+            while (addresses.size() < limit) {
+                int smallestRun = -1;
+                long smallestReference = 0;
+
+                for (int run = 0; run < cursors.length; run++) {
+                    if (cursors[run] >= runSizes.get(run)) {
+                        continue;
+                    }
+
+                    long reference = runs.get(run).getLong(cursors[run] * Long.BYTES);
+
+                    if (!termStartsWith(reference, prefixBytes)) {
+                        cursors[run] = runSizes.get(run);
+                    } else if (smallestRun < 0 || compareReferences(reference, smallestReference) < 0) {
+                        smallestRun = run;
+                        smallestReference = reference;
+                    }
+                }
+
+                if (smallestRun < 0) {
+                    break;
+                }
+
+                cursors[smallestRun]++;
+                addresses.add(smallestReference & ADDRESS_MASK);
+            }
+
+            List<Customer> customers = new ArrayList<>(addresses.size());
+
+            for (long address : addresses) {
+                customers.add(readCustomer(address));
+            }
+
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the slot that holds the key, or the empty slot where it would be inserted.
+     *
+     * @param keyBytes the normalized e-mail as UTF-8.
+     * @param hash     the key hash.
+     * @return the slot.
+     */
+    private int findSlot(byte[] keyBytes, int hash) {
+        int mask = slotCount - 1;
+        int slot = hash & mask;
+
+        while (true) {
+            long address = slotAddresses.getLong(slot * Long.BYTES);
+
+            if (address == 0 || (slotHashes.getInt(slot * Integer.BYTES) == hash && keyEquals(address, keyBytes))) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Double the hash table, reinserting the addresses by their stored hash (the records are not read).
+     */
+    private void resize() {
+        int newSlotCount = slotCount * 2;
+        int mask = newSlotCount - 1;
+        ByteBuffer newSlotAddresses = ByteBuffer.allocateDirect(newSlotCount * Long.BYTES);
+        ByteBuffer newSlotHashes = ByteBuffer.allocateDirect(newSlotCount * Integer.BYTES);
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            long address = slotAddresses.getLong(slot * Long.BYTES);
+
+            if (address == 0) {
+                continue;
+            }
+
+            int hash = slotHashes.getInt(slot * Integer.BYTES);
+            int newSlot = hash & mask;
+
+            while (newSlotAddresses.getLong(newSlot * Long.BYTES) != 0) {
+                newSlot = (newSlot + 1) & mask;
+            }
+
+            newSlotAddresses.putLong(newSlot * Long.BYTES, address);
+            newSlotHashes.putInt(newSlot * Integer.BYTES, hash);
+        }
+
+        slotAddresses = newSlotAddresses;
+        slotHashes = newSlotHashes;
+        slotCount = newSlotCount;
+    }
+
+    /**
+     * Insert a term reference in the sorted buffer. A full buffer becomes a run, merged with the runs of the same
+     * length (like a binary counter), so the runs have distinct lengths of 256 * 2^k references.
+     *
+     * @param reference the record address tagged with the term index.
+     */
+    private void addTermReference(long reference) {
+        int position = termBufferSize;
+
+        while (position > 0 && compareReferences(termBuffer.getLong((position - 1) * Long.BYTES), reference) > 0) {
+            termBuffer.putLong(position * Long.BYTES, termBuffer.getLong((position - 1) * Long.BYTES));
+            position--;
+        }
+
+        termBuffer.putLong(position * Long.BYTES, reference);
+        termBufferSize++;
+
+        if (termBufferSize < TERM_BUFFER_ENTRIES) {
+            return;
+        }
+
+        ByteBuffer run = ByteBuffer.allocateDirect(TERM_BUFFER_ENTRIES * Long.BYTES);
+        run.put(0, termBuffer, 0, TERM_BUFFER_ENTRIES * Long.BYTES);
+        termBufferSize = 0;
+
+        int level = 0;
+
+        while (level < termRuns.size() && termRuns.get(level) != null) {
+            run = mergeRuns(termRuns.get(level), run);
+            termRuns.set(level, null);
+            level++;
+        }
+
+        if (level == termRuns.size()) {
+            termRuns.add(run);
+        } else {
+            termRuns.set(level, run);
+        }
+    }
+
+    /**
+     * Merge two sorted runs into a new one.
+     *
+     * @param first  the first run.
+     * @param second the second run.
+     * @return the merged run.
+     */
+    private ByteBuffer mergeRuns(ByteBuffer first, ByteBuffer second) {
+        int firstSize = first.capacity() / Long.BYTES;
+        int secondSize = second.capacity() / Long.BYTES;
+        ByteBuffer merged = ByteBuffer.allocateDirect(first.capacity() + second.capacity());
+        int firstIndex = 0;
+        int secondIndex = 0;
+
+        for (int index = 0; index < firstSize + secondSize; index++) {
+            long reference;
+
+            if (secondIndex == secondSize || (firstIndex < firstSize && compareReferences(
+                    first.getLong(firstIndex * Long.BYTES), second.getLong(secondIndex * Long.BYTES)) <= 0)) {
+                reference = first.getLong(firstIndex++ * Long.BYTES);
+            } else {
+                reference = second.getLong(secondIndex++ * Long.BYTES);
+            }
+
+            merged.putLong(index * Long.BYTES, reference);
+        }
+
+        return merged;
+    }
+
+    /**
+     * Binary search a sorted run for the first reference whose term is not before the prefix.
+     *
+     * @param run         the sorted run.
+     * @param runSize     the number of references in the run.
+     * @param prefixBytes the normalized prefix as UTF-8.
+     * @return the index of that reference, or the run size if there is none.
+     */
+    private int findFirstTerm(ByteBuffer run, int runSize, byte[] prefixBytes) {
+        int low = 0;
+        int high = runSize;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long reference = run.getLong(middle * Long.BYTES);
+            ByteBuffer page = pages.get((int) ((reference & ADDRESS_MASK) >>> 32));
+            int offset = getTermOffset(reference);
+
+            if (compareField(page, offset, prefixBytes) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Order two term references by term, then by normalized e-mail (the order of {@link CustomerPrefixIndex}).
+     */
+    private int compareReferences(long first, long second) {
+        ByteBuffer firstPage = pages.get((int) ((first & ADDRESS_MASK) >>> 32));
+        ByteBuffer secondPage = pages.get((int) ((second & ADDRESS_MASK) >>> 32));
+        int order = compareFields(firstPage, getTermOffset(first), secondPage, getTermOffset(second));
+
+        if (order != 0) {
+            return order;
+        }
+
+        return compareFields(firstPage, (int) first - 1, secondPage, (int) second - 1);
+    }
+
+    /**
+     * Check if the term of a reference starts with a prefix, without materializing it.
+     */
+    private boolean termStartsWith(long reference, byte[] prefixBytes) {
+        ByteBuffer page = pages.get((int) ((reference & ADDRESS_MASK) >>> 32));
+        int offset = getTermOffset(reference);
+
+        if (Short.toUnsignedInt(page.getShort(offset)) < prefixBytes.length) {
+            return false;
+        }
+
+        for (int index = 0; index < prefixBytes.length; index++) {
+            if (page.get(offset + Short.BYTES + index) != prefixBytes[index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the page offset of the term field a reference points to.
+     */
+    private int getTermOffset(long reference) {
+        ByteBuffer page = pages.get((int) ((reference & ADDRESS_MASK) >>> 32));
+        int offset = (int) reference - 1;
+
+        for (int field = 0; field < TERM_FIELDS[(int) (reference >>> TERM_SHIFT)]; field++) {
+            offset += Short.BYTES + Short.toUnsignedInt(page.getShort(offset));
+        }
+
+        return offset;
+    }
+
+    /**
+     * Compare two length-prefixed UTF-8 fields as unsigned bytes.
+     */
+    private static int compareFields(ByteBuffer firstPage, int firstOffset, ByteBuffer secondPage, int secondOffset) {
+        int firstLength = Short.toUnsignedInt(firstPage.getShort(firstOffset));
+        int secondLength = Short.toUnsignedInt(secondPage.getShort(secondOffset));
+
+        for (int index = 0; index < Math.min(firstLength, secondLength); index++) {
+            int order = Integer.compare(Byte.toUnsignedInt(firstPage.get(firstOffset + Short.BYTES + index)),
+                    Byte.toUnsignedInt(secondPage.get(secondOffset + Short.BYTES + index)));
+
+            if (order != 0) {
+                return order;
+            }
+        }
+
+        return Integer.compare(firstLength, secondLength);
+    }
+
+    /**
+     * Compare a length-prefixed UTF-8 field with bytes, as unsigned bytes.
+     */
+    private static int compareField(ByteBuffer page, int offset, byte[] bytes) {
+        int length = Short.toUnsignedInt(page.getShort(offset));
+
+        for (int index = 0; index < Math.min(length, bytes.length); index++) {
+            int order = Integer.compare(Byte.toUnsignedInt(page.get(offset + Short.BYTES + index)),
+                    Byte.toUnsignedInt(bytes[index]));
+
+            if (order != 0) {
+                return order;
+            }
+        }
+
+        return Integer.compare(length, bytes.length);
+    }
+
+    /**
+     * Append a record to the last page (or a new one if it does not fit).
+     *
+     * @param fields the record fields as UTF-8.
+     * @return the record address: the page index in the high 32 bits and the offset + 1 in the low 32 bits (so that 0
+     * means no record).
+     */
+    private long appendRecord(byte[][] fields) {
+        int recordLength = 0;
+
+        for (byte[] field : fields) {
+            recordLength += Short.BYTES + field.length;
+        }
+
+        ByteBuffer page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+
+        if (page == null || page.remaining() < recordLength) {
+            page = ByteBuffer.allocateDirect(PAGE_SIZE);
+            pages.add(page);
+        }
+
+        int offset = page.position();
+
+        for (byte[] field : fields) {
+            page.putShort((short) field.length);
+            page.put(field);
+        }
+
+        return ((long) (pages.size() - 1) << 32) | (offset + 1);
+    }
+
+    /**
+     * Materialize the customer stored at an address.
+     *
+     * @param address the record address.
+     * @return the customer.
+     */
+    private Customer readCustomer(long address) {
+        ByteBuffer page = pages.get((int) (address >>> 32));
+        int offset = (int) address - 1;
+
+        offset += Short.BYTES + Short.toUnsignedInt(page.getShort(offset));
+
+        String email = readString(page, offset);
+        offset += Short.BYTES + Short.toUnsignedInt(page.getShort(offset));
+
+        String firstName = readString(page, offset);
+        offset += Short.BYTES + Short.toUnsignedInt(page.getShort(offset));
+
+        String lastName = readString(page, offset);
+
+        return new Customer(firstName, lastName, email);
+    }
+
+    private static String readString(ByteBuffer page, int offset) {
+        byte[] bytes = new byte[Short.toUnsignedInt(page.getShort(offset))];
+        page.get(offset + Short.BYTES, bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare the normalized e-mail of the record at an address with a key, without materializing it.
+     */
+    private boolean keyEquals(long address, byte[] keyBytes) {
+        ByteBuffer page = pages.get((int) (address >>> 32));
+        int offset = (int) address - 1;
+
+        if (Short.toUnsignedInt(page.getShort(offset)) != keyBytes.length) {
+            return false;
+        }
+
+        for (int index = 0; index < keyBytes.length; index++) {
+            if (page.get(offset + Short.BYTES + index) != keyBytes[index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int hash(byte[] bytes) {
+        int hash = 0x811C9DC5;
+
+        for (byte b : bytes) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+}
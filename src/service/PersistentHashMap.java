@@ -0,0 +1,363 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map with structural sharing (a hash array mapped trie).
+ * <p>
+ * {@link #plus(Object, Object)} and {@link #minus(Object)} return a new map that copies only the path to the changed
+ * entry (at most seven nodes of up to 32 slots), so a writer can publish a new version after every change while readers
+ * keep iterating the version they already hold.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+final class PersistentHashMap<K, V> {
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the value mapped to a key.
+     *
+     * @param key the key.
+     * @return the value, or null if the key is not mapped.
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        return (V) root.find(hash(key), key, 0);
+    }
+
+    /**
+     * Get a map with the key mapped to the value.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return the new map (or this map if the key was already mapped to that value).
+     */
+    PersistentHashMap<K, V> plus(K key, V value) {
+        boolean[] isAdded = new boolean[1];
+        Node newRoot = root.assoc(hash(key), key, value, 0, isAdded);
+
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, isAdded[0] ? size + 1 : size);
+    }
+
+    /**
+     * Get a map without the key.
+     *
+     * @param key the key.
+     * @return the new map (or this map if the key was not mapped).
+     */
+    PersistentHashMap<K, V> minus(Object key) {
+        Node newRoot = root.without(hash(key), key, 0);
+
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Perform an action for every entry (in no particular order).
+     *
+     * @param action the action.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((key, value) -> action.accept((K) key, (V) value));
+    }
+
+    /**
+     * Get the values (in no particular order).
+     *
+     * @return the values.
+     */
+    List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        forEach((key, value) -> values.add(value));
+
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) ->
+                builder.append(builder.length() == 1 ? "" : ", ").append(key).append('=').append(value));
+
+        return builder.append('}').toString();
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private interface Node {
+        Object find(int hash, Object key, int shift);
+
+        Node assoc(int hash, Object key, Object value, int shift, boolean[] isAdded);
+
+        Node without(int hash, Object key, int shift);
+
+        boolean isEmpty();
+
+        void forEach(BiConsumer<Object, Object> action);
+    }
+
+    private record Leaf(int hash, Object key, Object value) {
+    }
+
+    /**
+     * Trie node holding up to 32 slots (leaves or child nodes), stored compactly behind a bitmap.
+     */
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        @Override
+        public Object find(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+
+            Object slot = slots[index(bit)];
+
+            if (slot instanceof Leaf leaf) {
+                return leaf.hash() == hash && leaf.key().equals(key) ? leaf.value() : null;
+            }
+
+            return ((Node) slot).find(hash, key, shift + 5);
+        }
+
+        @Override
+        public Node assoc(int hash, Object key, Object value, int shift, boolean[] isAdded) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+
+            if ((bitmap & bit) == 0) {
+                isAdded[0] = true;
+
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = new Leaf(hash, key, value);
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[index];
+            Object newSlot;
+
+            if (slot instanceof Leaf leaf) {
+                if (leaf.hash() == hash && leaf.key().equals(key)) {
+                    if (leaf.value() == value) {
+                        return this;
+                    }
+
+                    newSlot = new Leaf(hash, key, value);
+                } else {
+                    isAdded[0] = true;
+                    newSlot = merge(leaf, new Leaf(hash, key, value), shift + 5);
+                }
+            } else {
+                Node child = (Node) slot;
+                newSlot = child.assoc(hash, key, value, shift + 5, isAdded);
+
+                if (newSlot == child) {
+                    return this;
+                }
+            }
+
+            Object[] newSlots = slots.clone();
+            newSlots[index] = newSlot;
+
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        public Node without(int hash, Object key, int shift) {
+            int bit = bit(hash, shift);
+
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int index = index(bit);
+            Object slot = slots[index];
+
+            if (slot instanceof Leaf leaf) {
+                return leaf.hash() == hash && leaf.key().equals(key) ? removeSlot(bit, index) : this;
+            }
+
+            Node child = (Node) slot;
+            Node newChild = child.without(hash, key, shift + 5);
+
+            if (newChild == child) {
+                return this;
+            }
+
+            if (newChild.isEmpty()) {
+                return removeSlot(bit, index);
+            }
+
+            Object[] newSlots = slots.clone();
+            newSlots[index] = newChild;
+
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bitmap == 0;
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (Object slot : slots) {
+                if (slot instanceof Leaf leaf) {
+                    action.accept(leaf.key(), leaf.value());
+                } else {
+                    ((Node) slot).forEach(action);
+                }
+            }
+        }
+
+        private BitmapNode removeSlot(int bit, int index) {
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        /**
+         * Create the node holding two leaves that share the same slot at the parent level.
+         */
+        private static Node merge(Leaf first, Leaf second, int shift) {
+            if (first.hash() == second.hash()) {
+                return new CollisionNode(first.hash(), new Leaf[]{first, second});
+            }
+
+            boolean[] isAdded = new boolean[1];
+
+            return EMPTY.assoc(first.hash(), first.key(), first.value(), shift, isAdded)
+                    .assoc(second.hash(), second.key(), second.value(), shift, isAdded);
+        }
+    }
+
+    /**
+     * Node holding the leaves whose keys have the exact same hash.
+     */
+    private static final class CollisionNode implements Node {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        public Object find(int hash, Object key, int shift) {
+            for (Leaf leaf : leaves) {
+                if (leaf.key().equals(key)) {
+                    return leaf.value();
+                }
+            }
+
+            return null;
+        }
+
+        @Override
+        public Node assoc(int hash, Object key, Object value, int shift, boolean[] isAdded) {
+            if (hash != this.hash) {
+                // The hashes diverge at this level: push this node one level down next to the new leaf.
+                BitmapNode node = new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[]{this});
+
+                return node.assoc(hash, key, value, shift, isAdded);
+            }
+
+            for (int index = 0; index < leaves.length; index++) {
+                if (leaves[index].key().equals(key)) {
+                    if (leaves[index].value() == value) {
+                        return this;
+                    }
+
+                    Leaf[] newLeaves = leaves.clone();
+                    newLeaves[index] = new Leaf(hash, key, value);
+
+                    return new CollisionNode(hash, newLeaves);
+                }
+            }
+
+            isAdded[0] = true;
+
+            Leaf[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+            newLeaves[leaves.length] = new Leaf(hash, key, value);
+
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        public Node without(int hash, Object key, int shift) {
+            for (int index = 0; index < leaves.length; index++) {
+                if (Objects.equals(leaves[index].key(), key)) {
+                    Leaf[] newLeaves = new Leaf[leaves.length - 1];
+                    System.arraycopy(leaves, 0, newLeaves, 0, index);
+                    System.arraycopy(leaves, index + 1, newLeaves, index, leaves.length - index - 1);
+
+                    return new CollisionNode(hash, newLeaves);
+                }
+            }
+
+            return this;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return leaves.length == 0;
+        }
+
+        @Override
+        public void forEach(BiConsumer<Object, Object> action) {
+            for (Leaf leaf : leaves) {
+                action.accept(leaf.key(), leaf.value());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable nightly rate calendar of a room, stored as primitive arrays by epoch day.
+ * <p>
+ * The calendar covers a window of nights with explicit rates and keeps their prefix sums, so the total price of any
+ * stay is two array reads; nights outside the window cost the room base price. Prices are in minor units (see
+ * {@link model.Money}), so the totals are exact. Changing rates returns a new calendar
+ * (rate changes are rare, stay quotes are not).
+ */
+final class RateCalendar {
+    /**
+     * An action on a run of nights with the same rate.
+     */
+    @FunctionalInterface
+    interface RateAction {
+        /**
+         * @param fromDay the first night (epoch day).
+         * @param toDay   the day after the last night (epoch day).
+         * @param rate    the price per night, in minor units.
+         */
+        void accept(long fromDay, long toDay, long rate);
+    }
+
+    private final long basePrice;
+    private final long firstDay;
+    private final long[] rates;
+    private final long[] prefixSums;
+
+    private RateCalendar(long basePrice, long firstDay, long[] rates) {
+        this.basePrice = basePrice;
+        this.firstDay = firstDay;
+        this.rates = rates;
+        this.prefixSums = new long[rates.length + 1];
+
+        for (int night = 0; night < rates.length; night++) {
+            prefixSums[night + 1] = prefixSums[night] + rates[night];
+        }
+    }
+
+    /**
+     * Create a calendar where every night costs the base price.
+     *
+     * @param basePrice the room price per night, in minor units.
+     * @return the calendar.
+     */
+    static RateCalendar of(long basePrice) {
+        return new RateCalendar(basePrice, 0, new long[0]);
+    }
+
+    /**
+     * Get a calendar with a rate for the nights in [fromDay, toDay).
+     *
+     * @param fromDay the first night (epoch day).
+     * @param toDay   the day after the last night (epoch day).
+     * @param rate    the price per night, in minor units.
+     * @return the new calendar.
+     */
+    RateCalendar withRate(long fromDay, long toDay, long rate) {
+        long newFirstDay = rates.length == 0 ? fromDay : Math.min(firstDay, fromDay);
+        long newLastDay = rates.length == 0 ? toDay : Math.max(firstDay + rates.length, toDay);
+        long[] newRates = new long[Math.toIntExact(newLastDay - newFirstDay)];
+
+        Arrays.fill(newRates, basePrice);
+        if (rates.length > 0) {
+            System.arraycopy(rates, 0, newRates, (int) (firstDay - newFirstDay), rates.length);
+        }
+
+        Arrays.fill(newRates, (int) (fromDay - newFirstDay), (int) (toDay - newFirstDay), rate);
+
+        return new RateCalendar(basePrice, newFirstDay, newRates);
+    }
+
+    /**
+     * Get the total price of the nights in [fromDay, toDay) in constant time.
+     *
+     * @param fromDay the check-in day (epoch day).
+     * @param toDay   the check-out day (epoch day).
+     * @return the total price of the stay, in minor units.
+     */
+    long quote(long fromDay, long toDay) {
+        long lastDay = firstDay + rates.length;
+        long from = Math.min(Math.max(fromDay, firstDay), lastDay);
+        long to = Math.max(Math.min(toDay, lastDay), from);
+        long nightsOutside = (toDay - fromDay) - (to - from);
+
+        return prefixSums[(int) (to - firstDay)] - prefixSums[(int) (from - firstDay)] + nightsOutside * basePrice;
+    }
+
+    /**
+     * Call an action for each run of consecutive nights that share a rate other than the base price, so that replaying
+     * {@link #withRate(long, long, long)} over the runs rebuilds the calendar.
+     *
+     * @param action the action.
+     */
+    void forEachRate(RateAction action) {
+        int from = 0;
+
+        for (int night = 1; night <= rates.length; night++) {
+            if (night == rates.length || rates[night] != rates[from]) {
+                if (rates[from] != basePrice) {
+                    action.accept(firstDay + from, firstDay + night, rates[from]);
+                }
+
+                from = night;
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded log of the customer, room and reservation mutations of this primary, numbered from 1.
+ * <p>
+ * The log is a ring that keeps the last {@code hotel.replication.log-size} mutations (100000 by default): a replica
+ * that connects starts from a snapshot of the current data and only needs the mutations logged after it, and a replica
+ * that falls further behind than the ring is disconnected. Senders wait on the log for the next mutation, with a
+ * timeout so they can send heartbeats while it is idle.
+ */
+final class ReplicationLog {
+    /**
+     * The kinds of mutations.
+     */
+    enum Kind {
+        CUSTOMER,
+        ROOM,
+        RESERVATION,
+        NIGHTLY_RATE,
+        ROOM_TYPE_ALLOTMENT,
+        ROOM_ASSIGNMENT
+    }
+
+    /**
+     * A logged mutation.
+     *
+     * @param sequence        the sequence number.
+     * @param timestampMillis when the mutation was logged (epoch milliseconds).
+     * @param kind            the kind of mutation.
+     * @param fields          the mutation fields, as text.
+     */
+    record Mutation(long sequence, long timestampMillis, Kind kind, List<String> fields) {
+        /**
+         * Write the mutation to a replication stream.
+         *
+         * @param output the replication stream.
+         * @throws IOException if the stream cannot be written.
+         */
+        void writeTo(DataOutputStream output) throws IOException {
+            output.writeLong(sequence);
+            output.writeLong(timestampMillis);
+            output.writeByte(kind.ordinal());
+            output.writeShort(fields.size());
+
+            for (String field : fields) {
+                output.writeUTF(field);
+            }
+        }
+
+        /**
+         * Read a mutation from a replication stream.
+         *
+         * @param input the replication stream.
+         * @return the mutation.
+         * @throws IOException if the stream cannot be read.
+         */
+        static Mutation readFrom(DataInputStream input) throws IOException {
+            long sequence = input.readLong();
+            long timestampMillis = input.readLong();
+            Kind kind = Kind.values()[input.readByte()];
+            String[] fields = new String[input.readShort()];
+
+            for (int index = 0; index < fields.length; index++) {
+                fields[index] = input.readUTF();
+            }
+
+            return new Mutation(sequence, timestampMillis, kind, List.of(fields));
+        }
+    }
+
+    private final Mutation[] mutations;
+    private long lastSequence;
+
+    /**
+     * Create an empty log.
+     *
+     * @param capacity the maximum number of mutations kept.
+     */
+    ReplicationLog(int capacity) {
+        mutations = new Mutation[Math.max(1, capacity)];
+    }
+
+    /**
+     * Append a mutation, overwriting the oldest one if the log is full, and wake up the waiting senders.
+     *
+     * @param kind   the kind of mutation.
+     * @param fields the mutation fields, as text.
+     */
+    synchronized void append(Kind kind, String... fields) {
+        lastSequence++;
+        mutations[(int) ((lastSequence - 1) % mutations.length)] = new Mutation(lastSequence,
+                System.currentTimeMillis(), kind, List.of(fields));
+        notifyAll();
+    }
+
+    /**
+     * Get the sequence number of the last mutation.
+     *
+     * @return the last sequence number (0 if nothing was logged).
+     */
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Run an action while no mutation can be appended, e.g. to take a snapshot that matches the last sequence number.
+     *
+     * @param action the action, called with the last sequence number.
+     * @param <T>    the type of the action result.
+     * @return the action result.
+     */
+    synchronized <T> T callAtLastSequence(LongFunction<T> action) {
+        return action.apply(lastSequence);
+    }
+
+    /**
+     * Get the mutation that follows a sequence number, waiting for it if needed.
+     *
+     * @param sequence      the sequence number of the last mutation read.
+     * @param timeoutMillis the maximum time to wait, in milliseconds.
+     * @return the next mutation, or null if none was logged before the timeout.
+     * @throws IllegalStateException if the next mutation was already overwritten.
+     * @throws InterruptedException  if the thread is interrupted while waiting.
+     */
+    synchronized Mutation awaitNext(long sequence, long timeoutMillis)
+            throws IllegalStateException, InterruptedException {
+        checkRetained(sequence);
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while (lastSequence <= sequence) {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                return null;
+            }
+
+            wait(remaining);
+        }
+
+        // Many mutations may have been appended while waiting, wrapping over the next one.
+        checkRetained(sequence);
+
+        return mutations[(int) (sequence % mutations.length)];
+    }
+
+    /**
+     * Check that the mutation that follows a sequence number was not overwritten yet.
+     *
+     * @param sequence the sequence number of the last mutation read.
+     * @throws IllegalStateException if the next mutation was already overwritten.
+     */
+    private void checkRetained(long sequence) throws IllegalStateException {
+        if (sequence < lastSequence - mutations.length) {
+            throw new IllegalStateException("The mutation " + (sequence + 1) + " is no longer in the replication log.");
+        }
+    }
+}
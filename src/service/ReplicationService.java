@@ -0,0 +1,539 @@
+package service;
+
+import model.Customer;
+import model.Dates;
+import model.FreeRoom;
+import model.IRoom;
+import model.ReplicationRole;
+import model.ReplicationStatus;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import model.RoomTypeAllotment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary/replica replication of the customers, rooms and reservations over TCP.
+ * <p>
+ * Once this server is started as a primary, every write to the {@link CustomerService} and the
+ * {@link ReservationService} is appended to a bounded {@link ReplicationLog}. A primary accepts replica connections and
+ * sends each of them a snapshot of the current customers, rooms, nightly rates, reservations and pending allotments,
+ * then streams the log from the snapshot on, followed by a heartbeat (with the last sequence number) whenever it is
+ * idle. A replica that falls further behind than the log is disconnected. A replica applies the mutations in order on
+ * a single thread and rejects every other write with an {@link IllegalStateException}, so it only serves searches and
+ * lookups.
+ * <p>
+ * A replica can be promoted: it disconnects from its primary and accepts writes again (and can then be started as a
+ * primary). Archiving is local to each server and is not replicated.
+ */
+final public class ReplicationService {
+    private static final byte MUTATION_FRAME = 0;
+    private static final byte HEARTBEAT_FRAME = 1;
+
+    private static ReplicationService instance;
+
+    /**
+     * A point-in-time view of the data of this primary, matching a sequence number of the log.
+     *
+     * @param sequence      the sequence number of the last mutation included.
+     * @param customers     the customers.
+     * @param reservations  the rooms and reservations.
+     * @param rateCalendars the nightly rate calendars, by room number.
+     * @param allotments    the pending room type allotments.
+     */
+    private record Snapshot(long sequence, List<Customer> customers, ReservationSnapshot reservations,
+                            Map<String, RateCalendar> rateCalendars, List<RoomTypeAllotment> allotments) {
+    }
+
+    private final ReplicationLog replicationLog;
+    private final Set<Socket> replicaSockets;
+    private final long heartbeatMillis;
+    private volatile ReplicationRole role;
+    private volatile ServerSocket serverSocket;
+    private volatile Socket primarySocket;
+    private volatile Thread applierThread;
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile long lagMillis;
+    private volatile String lastError;
+
+    private ReplicationService() {
+        replicationLog = new ReplicationLog(Integer.getInteger("hotel.replication.log-size", 100_000));
+        replicaSockets = ConcurrentHashMap.newKeySet();
+        heartbeatMillis = Integer.getInteger("hotel.replication.heartbeat-ms", 1000);
+        role = ReplicationRole.STANDALONE;
+    }
+
+    public static synchronized ReplicationService getInstance() {
+        if (instance == null) {
+            instance = new ReplicationService();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Start streaming the mutations of this server to the replicas that connect to a port.
+     *
+     * @param port the port to listen to (0 for any free port).
+     * @return the port listened to.
+     * @throws IllegalStateException if this server is already a primary or is a replica.
+     * @throws UncheckedIOException  if the port cannot be listened to.
+     */
+    public synchronized int startPrimary(int port) throws IllegalStateException, UncheckedIOException {
+        if (role != ReplicationRole.STANDALONE) {
+            throw new IllegalStateException("This server is already a " + role.name().toLowerCase() + ".");
+        }
+
+        try {
+            serverSocket = new ServerSocket(port);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not listen to the replication port " + port + ".", e);
+        }
+
+        role = ReplicationRole.PRIMARY;
+        newDaemonThread("hotel-replication-acceptor", () -> acceptReplicas(serverSocket)).start();
+
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Start following a primary: apply its mutations and reject any other write.
+     *
+     * @param host the primary host.
+     * @param port the primary replication port.
+     * @throws IllegalStateException if this server is not standalone or already has data.
+     * @throws UncheckedIOException  if the primary cannot be reached.
+     */
+    public synchronized void startReplica(String host, int port) throws IllegalStateException, UncheckedIOException {
+        if (role != ReplicationRole.STANDALONE) {
+            throw new IllegalStateException("This server is already a " + role.name().toLowerCase() + ".");
+        }
+
+        if (!CustomerService.getInstance().getAllCustomers().isEmpty()
+                || !ReservationService.getInstance().getAllRooms().isEmpty()) {
+            throw new IllegalStateException("A replica must start without customers, rooms or reservations.");
+        }
+
+        try {
+            primarySocket = new Socket(host, port);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not connect to the primary " + host + ":" + port + ".", e);
+        }
+
+        Socket socket = primarySocket;
+        lastError = null;
+
+        // The applier thread must be known before it starts, so that its writes are accepted.
+        applierThread = newDaemonThread("hotel-replication-applier", () -> applyMutations(socket));
+        role = ReplicationRole.REPLICA;
+        applierThread.start();
+    }
+
+    /**
+     * Promote this replica: stop following the primary and accept writes again.
+     *
+     * @throws IllegalStateException if this server is not a replica.
+     */
+    public synchronized void promote() throws IllegalStateException {
+        if (role != ReplicationRole.REPLICA) {
+            throw new IllegalStateException("Only a replica can be promoted.");
+        }
+
+        close(primarySocket);
+
+        try {
+            applierThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        applierThread = null;
+        role = ReplicationRole.STANDALONE;
+    }
+
+    /**
+     * Get the replication state of this server, including the replica lag.
+     *
+     * @return the replication status.
+     */
+    public ReplicationStatus getStatus() {
+        ReplicationRole currentRole = role;
+
+        if (currentRole == ReplicationRole.REPLICA) {
+            Socket socket = primarySocket;
+
+            return new ReplicationStatus(currentRole, socket != null && !socket.isClosed(), 0, appliedSequence,
+                    primarySequence, lagMillis, lastError);
+        }
+
+        long lastSequence = replicationLog.getLastSequence();
+
+        return new ReplicationStatus(currentRole, currentRole == ReplicationRole.PRIMARY, replicaSockets.size(),
+                lastSequence, lastSequence, 0, null);
+    }
+
+    /**
+     * Reject a write on a replica (unless it is a mutation streamed by the primary).
+     *
+     * @throws IllegalStateException if this server is a replica.
+     */
+    void checkWritable() throws IllegalStateException {
+        if (role == ReplicationRole.REPLICA && Thread.currentThread() != applierThread) {
+            throw new IllegalStateException("This server is a read-only replica.");
+        }
+    }
+
+    /**
+     * Log a customer registration (on a primary). A standalone server keeps no log: the replicas of a future primary
+     * start from a snapshot.
+     *
+     * @param customer the customer.
+     */
+    void recordCustomer(Customer customer) {
+        if (role == ReplicationRole.PRIMARY) {
+            replicationLog.append(ReplicationLog.Kind.CUSTOMER, customerFields(customer));
+        }
+    }
+
+    /**
+     * Log a room addition (on a primary).
+     *
+     * @param room the room.
+     */
+    void recordRoom(IRoom room) {
+        if (role == ReplicationRole.PRIMARY) {
+            replicationLog.append(ReplicationLog.Kind.ROOM, roomFields(room));
+        }
+    }
+
+    /**
+     * Log a room reservation (on a primary).
+     *
+     * @param reservation the reservation.
+     */
+    void recordReservation(Reservation reservation) {
+        if (role == ReplicationRole.PRIMARY) {
+            replicationLog.append(ReplicationLog.Kind.RESERVATION, reservationFields(reservation));
+        }
+    }
+
+    /**
+     * Log a nightly rate change (on a primary).
+     *
+     * @param roomNumber the room number.
+     * @param dates      the first night and the day after the last night.
+     * @param rate       the price per night, in minor units.
+     */
+    void recordNightlyRate(String roomNumber, Dates dates, long rate) {
+        if (role == ReplicationRole.PRIMARY) {
+            replicationLog.append(ReplicationLog.Kind.NIGHTLY_RATE, nightlyRateFields(roomNumber,
+                    dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay(), rate));
+        }
+    }
+
+    /**
+     * Log a room type allotment (on a primary).
+     *
+     * @param allotment the room type allotment.
+     */
+    void recordRoomTypeAllotment(RoomTypeAllotment allotment) {
+        if (role == ReplicationRole.PRIMARY) {
+            replicationLog.append(ReplicationLog.Kind.ROOM_TYPE_ALLOTMENT, allotmentFields(allotment));
+        }
+    }
+
+    /**
+     * Log the assignment of a room to a room type allotment (on a primary).
+     *
+     * @param allotment the room type allotment.
+     * @param room      the assigned room.
+     */
+    void recordRoomAssignment(RoomTypeAllotment allotment, IRoom room) {
+        if (role == ReplicationRole.PRIMARY) {
+            replicationLog.append(ReplicationLog.Kind.ROOM_ASSIGNMENT, concat(allotmentFields(allotment),
+                    room.getNumber()));
+        }
+    }
+
+    /**
+     * Accept replica connections until the server socket is closed, streaming the log to each replica on its own
+     * thread.
+     *
+     * @param serverSocket the replication server socket.
+     */
+    private void acceptReplicas(ServerSocket serverSocket) {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                replicaSockets.add(socket);
+                newDaemonThread("hotel-replication-sender", () -> streamMutations(socket)).start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Send a snapshot to a replica, then stream the log from the snapshot on until the replica disconnects or falls
+     * behind the log, sending a heartbeat whenever the log is idle.
+     *
+     * @param socket the replica connection.
+     */
+    private void streamMutations(Socket socket) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            long sentSequence = sendSnapshot(output, takeSnapshot());
+
+            while (true) {
+                ReplicationLog.Mutation mutation = replicationLog.awaitNext(sentSequence, heartbeatMillis);
+
+                if (mutation == null) {
+                    output.writeByte(HEARTBEAT_FRAME);
+                    output.writeLong(sentSequence);
+                    output.flush();
+                    continue;
+                }
+
+                output.writeByte(MUTATION_FRAME);
+                mutation.writeTo(output);
+                sentSequence = mutation.sequence();
+
+                // Batch the mutations that are already logged into one write.
+                if (sentSequence == replicationLog.getLastSequence()) {
+                    output.flush();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The replica disconnected, or fell behind the log and must start again from a snapshot.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            replicaSockets.remove(socket);
+            close(socket);
+        }
+    }
+
+    /**
+     * Take a snapshot of the data of this primary while no write can be logged, so that the snapshot holds exactly the
+     * mutations up to the last sequence number. Only references to immutable views are taken here; the snapshot is
+     * serialized by {@link #sendSnapshot(DataOutputStream, Snapshot)} once the writes are unblocked.
+     *
+     * @return the snapshot.
+     */
+    private Snapshot takeSnapshot() {
+        ReservationService reservationService = ReservationService.getInstance();
+
+        // Same lock order as the writes: the reservation service, then the log.
+        return reservationService.callExclusively(() -> replicationLog.callAtLastSequence(sequence -> new Snapshot(
+                sequence, CustomerService.getInstance().getAllCustomers(), reservationService.getSnapshot(),
+                Map.copyOf(reservationService.getRateCalendars()), reservationService.getPendingAllotments())));
+    }
+
+    /**
+     * Send a snapshot to a replica as mutations numbered with the snapshot sequence number, followed by a heartbeat.
+     *
+     * @param output   the replication stream.
+     * @param snapshot the snapshot.
+     * @return the snapshot sequence number.
+     * @throws IOException if the stream cannot be written.
+     */
+    private static long sendSnapshot(DataOutputStream output, Snapshot snapshot) throws IOException {
+        long sequence = snapshot.sequence();
+        long timestampMillis = System.currentTimeMillis();
+
+        for (Customer customer : snapshot.customers()) {
+            writeMutation(output, sequence, timestampMillis, ReplicationLog.Kind.CUSTOMER, customerFields(customer));
+        }
+
+        for (IRoom room : snapshot.reservations().getAllRooms()) {
+            writeMutation(output, sequence, timestampMillis, ReplicationLog.Kind.ROOM, roomFields(room));
+        }
+
+        for (Map.Entry<String, RateCalendar> entry : snapshot.rateCalendars().entrySet()) {
+            List<String[]> rates = new ArrayList<>();
+            entry.getValue().forEachRate((fromDay, toDay, rate) ->
+                    rates.add(nightlyRateFields(entry.getKey(), fromDay, toDay, rate)));
+
+            for (String[] fields : rates) {
+                writeMutation(output, sequence, timestampMillis, ReplicationLog.Kind.NIGHTLY_RATE, fields);
+            }
+        }
+
+        for (Reservation reservation : snapshot.reservations().getAllReservations()) {
+            writeMutation(output, sequence, timestampMillis, ReplicationLog.Kind.RESERVATION,
+                    reservationFields(reservation));
+        }
+
+        for (RoomTypeAllotment allotment : snapshot.allotments()) {
+            writeMutation(output, sequence, timestampMillis, ReplicationLog.Kind.ROOM_TYPE_ALLOTMENT,
+                    allotmentFields(allotment));
+        }
+
+        output.writeByte(HEARTBEAT_FRAME);
+        output.writeLong(sequence);
+        output.flush();
+
+        return sequence;
+    }
+
+    private static void writeMutation(DataOutputStream output, long sequence, long timestampMillis,
+                                      ReplicationLog.Kind kind, String... fields) throws IOException {
+        output.writeByte(MUTATION_FRAME);
+        new ReplicationLog.Mutation(sequence, timestampMillis, kind, List.of(fields)).writeTo(output);
+    }
+
+    /**
+     * Apply the mutations streamed by the primary until it disconnects, a mutation cannot be applied or this replica is
+     * promoted. A mutation that cannot be applied would leave this replica diverged from the primary, so the connection
+     * is closed and the failure is kept in the {@link #getStatus() status}.
+     *
+     * @param socket the primary connection.
+     */
+    private void applyMutations(Socket socket) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (true) {
+                if (input.readByte() == HEARTBEAT_FRAME) {
+                    // Every mutation up to the heartbeat sequence number was sent before it, so it is applied.
+                    long heartbeatSequence = input.readLong();
+                    primarySequence = Math.max(primarySequence, heartbeatSequence);
+                    appliedSequence = Math.max(appliedSequence, heartbeatSequence);
+                    continue;
+                }
+
+                ReplicationLog.Mutation mutation = ReplicationLog.Mutation.readFrom(input);
+                primarySequence = Math.max(primarySequence, mutation.sequence());
+
+                try {
+                    apply(mutation);
+                } catch (RuntimeException e) {
+                    lastError = "Could not apply the mutation " + mutation.sequence() + " ("
+                            + mutation.kind().name().toLowerCase() + "): " + e.getMessage();
+                    return;
+                }
+
+                appliedSequence = mutation.sequence();
+                lagMillis = Math.max(0, System.currentTimeMillis() - mutation.timestampMillis());
+            }
+        } catch (IOException e) {
+            // The socket is only closed here if this replica was promoted.
+            if (!socket.isClosed()) {
+                lastError = e instanceof EOFException
+                        ? "The primary closed the connection."
+                        : "Lost the connection to the primary: " + e.getMessage();
+            }
+        } finally {
+            close(socket);
+        }
+    }
+
+    /**
+     * Apply a mutation streamed by the primary to the local services.
+     *
+     * @param mutation the mutation.
+     */
+    private void apply(ReplicationLog.Mutation mutation) {
+        List<String> fields = mutation.fields();
+        ReservationService reservationService = ReservationService.getInstance();
+
+        switch (mutation.kind()) {
+            case CUSTOMER -> CustomerService.getInstance().registerCustomer(fields.get(0), fields.get(1),
+                    fields.get(2));
+            case ROOM -> reservationService.addRoom(toRoom(fields, 0));
+            case RESERVATION -> reservationService.reserveRoom(toCustomer(fields, 0), getRoom(fields, 3),
+                    toDates(fields, 7));
+            case NIGHTLY_RATE -> reservationService.setNightlyRate(fields.get(0), toDates(fields, 1),
+                    Long.parseLong(fields.get(3)));
+            case ROOM_TYPE_ALLOTMENT -> reservationService.reserveRoomType(toCustomer(fields, 0),
+                    RoomType.valueOf(fields.get(3)), toDates(fields, 4));
+            case ROOM_ASSIGNMENT -> reservationService.assignRoom(new RoomTypeAllotment(toCustomer(fields, 0),
+                    RoomType.valueOf(fields.get(3)), toDates(fields, 4)), reservationService.getRoom(fields.get(6)));
+        }
+    }
+
+    private static String[] customerFields(Customer customer) {
+        return new String[]{customer.getEmail(), customer.getFirstName(), customer.getLastName()};
+    }
+
+    private static String[] roomFields(IRoom room) {
+        return new String[]{room.getNumber(), Long.toString(room.getPrice()), room.getType().name(),
+                Boolean.toString(room instanceof FreeRoom)};
+    }
+
+    private static String[] reservationFields(Reservation reservation) {
+        return concat(customerFields(reservation.getCustomer()), concat(roomFields(reservation.getRoom()),
+                reservation.getCheckIn().toString(), reservation.getCheckOut().toString()));
+    }
+
+    private static String[] nightlyRateFields(String roomNumber, long fromDay, long toDay, long rate) {
+        return new String[]{roomNumber, LocalDate.ofEpochDay(fromDay).toString(),
+                LocalDate.ofEpochDay(toDay).toString(), Long.toString(rate)};
+    }
+
+    private static String[] allotmentFields(RoomTypeAllotment allotment) {
+        return concat(customerFields(allotment.customer()), allotment.type().name(),
+                allotment.dates().checkIn().toString(), allotment.dates().checkOut().toString());
+    }
+
+    private static String[] concat(String[] fields, String... moreFields) {
+        String[] allFields = Arrays.copyOf(fields, fields.length + moreFields.length);
+        System.arraycopy(moreFields, 0, allFields, fields.length, moreFields.length);
+
+        return allFields;
+    }
+
+    private static Customer toCustomer(List<String> fields, int from) {
+        return new Customer(fields.get(from + 1), fields.get(from + 2), fields.get(from));
+    }
+
+    private static IRoom toRoom(List<String> fields, int from) {
+        RoomType type = RoomType.valueOf(fields.get(from + 2));
+
+        return Boolean.parseBoolean(fields.get(from + 3))
+                ? new FreeRoom(fields.get(from), type)
+                : new Room(fields.get(from), Long.parseLong(fields.get(from + 1)), type);
+    }
+
+    /**
+     * Get the local room of a mutation (or the room as logged, if it is not known locally).
+     */
+    private static IRoom getRoom(List<String> fields, int from) {
+        IRoom room = ReservationService.getInstance().getRoom(fields.get(from));
+
+        return room == null ? toRoom(fields, from) : room;
+    }
+
+    private static Dates toDates(List<String> fields, int from) {
+        return new Dates(LocalDate.parse(fields.get(from)), LocalDate.parse(fields.get(from + 1)));
+    }
+
+    private static Thread newDaemonThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+
+        return thread;
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed.
+        }
+    }
+}
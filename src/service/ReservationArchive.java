@@ -0,0 +1,257 @@
+package service;
+
+import model.Customer;
+import model.FreeRoom;
+import model.IRoom;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed on-disk cold store for past reservations.
+ * <p>
+ * Every archival run appends one block to the archive file: the length of the block, then the reservations of the run
+ * as one GZIP member. Archiving never rewrites the reservations that were archived before. An in-memory index maps each
+ * customer e-mail to the blocks that hold stays of that customer, so a lookup only decompresses those blocks; the index
+ * of an archive file that already exists is built by one scan on first use.
+ * <p>
+ * Without a file, the archive uses a temporary file of its own (deleted on exit), created on the first archival run.
+ * Reads and appends are serialized on the archive.
+ */
+final class ReservationArchive {
+    private Path path;
+    private final Map<String, List<Long>> emailToBlockOffsets;
+    private boolean isIndexed;
+
+    /**
+     * Creates an archive backed by the specified file, or by a temporary file of its own.
+     *
+     * @param path the archive file, or null for a temporary file.
+     */
+    ReservationArchive(Path path) {
+        this.path = path;
+        this.emailToBlockOffsets = new HashMap<>();
+        this.isIndexed = path == null;
+    }
+
+    /**
+     * Append reservations to the archive, as one block.
+     *
+     * @param reservations the reservations to archive.
+     * @throws UncheckedIOException if the archive file cannot be written.
+     */
+    synchronized void append(Collection<Reservation> reservations) throws UncheckedIOException {
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        Set<String> emails = new LinkedHashSet<>();
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+
+        try {
+            index();
+
+            try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(block))) {
+                for (Reservation reservation : reservations) {
+                    Customer customer = reservation.getCustomer();
+                    IRoom room = reservation.getRoom();
+
+                    output.writeUTF(customer.getEmail());
+                    output.writeUTF(customer.getFirstName());
+                    output.writeUTF(customer.getLastName());
+                    output.writeUTF(room.getNumber());
+                    output.writeLong(room.getPrice());
+                    output.writeUTF(room.getType().name());
+                    output.writeLong(reservation.getCheckIn().toEpochDay());
+                    output.writeLong(reservation.getCheckOut().toEpochDay());
+                    emails.add(customer.getEmail());
+                }
+            }
+
+            if (path == null) {
+                path = Files.createTempFile("hotel-reservations-archive", ".gz");
+                path.toFile().deleteOnExit();
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                long offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + block.size()).putInt(block.size())
+                        .put(block.toByteArray()).flip();
+
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                for (String email : emails) {
+                    emailToBlockOffsets.computeIfAbsent(email, key -> new ArrayList<>()).add(offset);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the reservation archive " + path + ".", e);
+        }
+    }
+
+    /**
+     * Read the archived reservations of a customer, from the blocks that hold stays of that customer only.
+     *
+     * @param customerEmail the customer e-mail.
+     * @param numberToRoom  resolves a room number to the current room, or null if the room no longer exists.
+     * @return the archived reservations of the customer.
+     * @throws UncheckedIOException if the archive file cannot be read.
+     */
+    synchronized List<Reservation> read(String customerEmail, Function<String, IRoom> numberToRoom)
+            throws UncheckedIOException {
+        List<Reservation> reservations = new ArrayList<>();
+
+        try {
+            index();
+
+            List<Long> blockOffsets = emailToBlockOffsets.get(customerEmail);
+
+            if (blockOffsets == null) {
+                return reservations;
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                for (long offset : blockOffsets) {
+                    readBlock(readBlock(channel, offset), customerEmail, numberToRoom, reservations);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the reservation archive " + path + ".", e);
+        }
+
+        return reservations;
+    }
+
+    /**
+     * Build the customer index of an archive file that existed before this archive, once.
+     *
+     * @throws IOException if the archive file cannot be read.
+     */
+    private void index() throws IOException {
+        if (isIndexed) {
+            return;
+        }
+
+        if (Files.exists(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long offset = 0;
+
+                while (offset < channel.size()) {
+                    byte[] block = readBlock(channel, offset);
+                    List<Reservation> blockReservations = new ArrayList<>();
+                    readBlock(block, null, roomNumber -> null, blockReservations);
+
+                    for (Reservation reservation : blockReservations) {
+                        List<Long> blockOffsets = emailToBlockOffsets.computeIfAbsent(
+                                reservation.getCustomer().getEmail(), key -> new ArrayList<>());
+
+                        if (blockOffsets.isEmpty() || blockOffsets.get(blockOffsets.size() - 1) != offset) {
+                            blockOffsets.add(offset);
+                        }
+                    }
+
+                    offset += Integer.BYTES + block.length;
+                }
+            }
+        }
+
+        isIndexed = true;
+    }
+
+    /**
+     * Read the compressed bytes of the block at an offset.
+     *
+     * @param channel the archive file.
+     * @param offset  the offset of the block.
+     * @return the compressed reservations of the block.
+     * @throws IOException if the block cannot be read.
+     */
+    private static byte[] readBlock(FileChannel channel, long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, length, offset);
+
+        ByteBuffer block = ByteBuffer.allocate(length.getInt(0));
+        readFully(channel, block, offset + Integer.BYTES);
+
+        return block.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("The reservation archive is truncated.");
+            }
+        }
+    }
+
+    /**
+     * Decompress the reservations of a block.
+     *
+     * @param block         the compressed reservations.
+     * @param customerEmail the e-mail of the customer whose reservations to keep, or null to keep them all.
+     * @param numberToRoom  resolves a room number to the current room, or null if the room no longer exists.
+     * @param reservations  receives the reservations.
+     * @throws IOException if the block cannot be decompressed.
+     */
+    private static void readBlock(byte[] block, String customerEmail, Function<String, IRoom> numberToRoom,
+                                  List<Reservation> reservations) throws IOException {
+        try (DataInputStream input = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)))) {
+            while (true) {
+                String email;
+
+                try {
+                    email = input.readUTF();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                String firstName = input.readUTF();
+                String lastName = input.readUTF();
+                String roomNumber = input.readUTF();
+                long price = input.readLong();
+                RoomType type = RoomType.valueOf(input.readUTF());
+                LocalDate checkIn = LocalDate.ofEpochDay(input.readLong());
+                LocalDate checkOut = LocalDate.ofEpochDay(input.readLong());
+
+                if (customerEmail != null && !email.equals(customerEmail)) {
+                    continue;
+                }
+
+                IRoom room = numberToRoom.apply(roomNumber);
+
+                if (room == null) {
+                    room = price == 0 ? new FreeRoom(roomNumber, type) : new Room(roomNumber, price, type);
+                }
+
+                reservations.add(new Reservation(new Customer(firstName, lastName, email), room, checkIn, checkOut));
+            }
+        }
+    }
+}
@@ -1,37 +1,120 @@
 package service;
 
+import model.AvailabilityPlan;
+import model.AvailabilityQuery;
+import model.AvailabilityResult;
 import model.Customer;
+import model.DailyGuestReport;
+import model.DailyOccupancy;
 import model.Dates;
+import model.ExtendableStay;
+import model.FreeRoom;
 import model.IRoom;
+import model.Money;
 import model.Reservation;
 import model.Room;
+import model.RoomBlock;
+import model.RoomHold;
+import model.RoomSearchType;
 import model.RoomType;
+import model.RoomTypeAllotment;
+import model.StayQuote;
+import model.TestDataSpec;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 /**
  * Communicates with the resources to build the business logic necessary to provide feedback to the UI.
  * <p>
  * Stateful service (remembers things for the project) that uses Collections to manage information. As such, there's
  * only one of each service (Singleton).
+ * <p>
+ * The writes (rooms, reservations, holds, allotments, rates and archiving) are serialized on the service, while the
+ * reads use concurrent collections or the published {@link ReservationSnapshot}, so they never block on a write.
+ * <p>
+ * Room holds expire on a hashed timing wheel ticking every {@code hotel.hold.tick-ms} (100 by default) over
+ * {@code hotel.hold.wheel-slots} slots (512 by default), so creating, confirming and expiring a hold are O(1) no matter
+ * how many holds are pending.
+ * <p>
+ * Past reservations are archived to the {@code hotel.archive.path} file, which survives restarts; without it, each
+ * server archives to a temporary file of its own.
  */
 final public class ReservationService {
     private static ReservationService instance;
 
     final private Map<String, List<Reservation>> roomNumberToReservations;
+    final private Map<String, NavigableMap<LocalDate, Reservation>> roomNumberToCheckInToReservation;
     final private Map<String, IRoom> roomNumberToRoom;
+    final private List<RoomTypeAllotment> pendingAllotments;
+    final private ReservationArchive reservationArchive;
+    final private AtomicReference<ReservationSnapshot> snapshot;
+    final private Map<String, RateCalendar> roomNumberToRateCalendar;
+    final private IdempotencyCache<Reservation> bookingIdempotencyCache;
+    final private ReplicationService replicationService;
+    final private DailyGuestIndex dailyGuestIndex;
+    final private OccupancyCounters occupancyCounters;
+    final private Map<String, List<RoomHold>> roomNumberToHolds;
+    final private Map<Long, TimingWheel.Timeout<RoomHold>> holdIdToTimeout;
+    final private TimingWheel<RoomHold> holdWheel;
+    final private long holdTickMillis;
+    final private Duration defaultHoldTtl;
+    private ScheduledExecutorService holdExpiryExecutor;
+    private long nextHoldId;
+    private volatile int parallelSearchThreshold;
 
     private ReservationService() {
-        roomNumberToReservations = new HashMap<>();
-        roomNumberToRoom = new HashMap<>();
+        roomNumberToReservations = new ConcurrentHashMap<>();
+        roomNumberToCheckInToReservation = new ConcurrentHashMap<>();
+        roomNumberToRoom = new ConcurrentHashMap<>();
+        pendingAllotments = new ArrayList<>();
+        snapshot = new AtomicReference<>(ReservationSnapshot.EMPTY);
+        roomNumberToRateCalendar = new ConcurrentHashMap<>();
+        bookingIdempotencyCache = new IdempotencyCache<>(Integer.getInteger("hotel.idempotency.max-entries", 100_000),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("hotel.idempotency.ttl-seconds", 600)));
+        parallelSearchThreshold = Integer.getInteger("hotel.search.parallel-threshold", 2048);
+        replicationService = ReplicationService.getInstance();
+        dailyGuestIndex = new DailyGuestIndex();
+        occupancyCounters = new OccupancyCounters();
+        roomNumberToHolds = new HashMap<>();
+        holdIdToTimeout = new HashMap<>();
+        holdTickMillis = Math.max(1, Integer.getInteger("hotel.hold.tick-ms", 100));
+        holdWheel = new TimingWheel<>(TimeUnit.MILLISECONDS.toNanos(holdTickMillis),
+                Integer.getInteger("hotel.hold.wheel-slots", 512), System.nanoTime());
+        defaultHoldTtl = Duration.ofSeconds(Integer.getInteger("hotel.hold.ttl-seconds", 600));
+        nextHoldId = 1;
+        String archivePath = System.getProperty("hotel.archive.path");
+        reservationArchive = new ReservationArchive(archivePath == null ? null : Path.of(archivePath));
     }
 
-    public static ReservationService getInstance() {
+    public static synchronized ReservationService getInstance() {
         if (instance == null) {
             instance = new ReservationService();
         }
@@ -50,53 +133,540 @@ final public class ReservationService {
     }
 
     /**
-     * Find the available rooms for the desired dates.
+     * Find the available rooms for the desired dates, sorted by room number.
+     * <p>
+     * The search reads the latest snapshot. When the search type matches more rooms than the parallel search threshold,
+     * the rooms are split into fork/join tasks and checked concurrently; otherwise they are checked on the caller
+     * thread.
      *
      * @param dates          the check-in and check-out dates for this reservation.
      * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
      * @return the available rooms for the desired dates.
      */
     public List<IRoom> findAvailableRooms(Dates dates, String roomSearchType) {
-        List<String> searchTypeRoomNumbers = getSearchTypeRoomNumbers(roomSearchType);
-        List<IRoom> availableRooms = new ArrayList<>();
+        Predicate<IRoom> searchTypeFilter = getSearchTypeFilter(RoomSearchType.fromCode(roomSearchType));
+
+        return findAvailableRooms(dates,
+                currentSnapshot -> currentSnapshot.getAllRooms().stream().filter(searchTypeFilter).toList(),
+                Integer.MAX_VALUE, roomSearchType);
+    }
+
+    /**
+     * Find the rooms available for an availability query, letting the planner choose the cheapest access path.
+     * <p>
+     * The planner counts the candidate rooms of each usable access path with binary searches on the room indexes (the
+     * room type partition, the rooms sorted by price and the rooms sorted by number) and reads the smallest one. When
+     * the query has a room type and the nightly free-room counters of that type show a fully booked night, no room is
+     * read at all.
+     *
+     * @param query the availability query.
+     * @return the available rooms (sorted by room number, at most the query limit) and the plan used.
+     */
+    public AvailabilityResult findAvailableRooms(AvailabilityQuery query) {
+        AvailabilityPlan[] plan = new AvailabilityPlan[1];
+
+        List<IRoom> availableRooms = findAvailableRooms(query.dates(), currentSnapshot -> {
+            List<IRoom> candidateRooms = planCandidateRooms(query, currentSnapshot, plan);
+            List<IRoom> checkedRooms = candidateRooms.stream().filter(query::matches).toList();
+            plan[0] = plan[0].withCheckedRooms(checkedRooms.size());
+
+            return checkedRooms;
+        }, query.limit(), "QUERY");
+
+        return new AvailabilityResult(List.copyOf(availableRooms), plan[0]);
+    }
+
+    /**
+     * Choose the cheapest access path of an availability query and read its candidate rooms.
+     *
+     * @param query           the availability query.
+     * @param currentSnapshot the snapshot to read (room indexes and free-room counters).
+     * @param plan            receives the chosen plan (the checked rooms are counted once the candidates are filtered).
+     * @return the candidate rooms, sorted by room number.
+     */
+    private static List<IRoom> planCandidateRooms(AvailabilityQuery query, ReservationSnapshot currentSnapshot,
+                                                  AvailabilityPlan[] plan) {
+        RoomIndexes roomIndexes = currentSnapshot.getRoomIndexes();
+        List<IRoom> roomsByNumber = roomIndexes.getRoomsByNumber();
+        int totalRooms = roomsByNumber.size();
+
+        if (query.type() != null && getFreeRoomCount(currentSnapshot, query.type(), query.dates()) < 1) {
+            plan[0] = new AvailabilityPlan(AvailabilityPlan.AccessPath.DATE_OCCUPANCY, totalRooms, 0, 0);
+
+            return List.of();
+        }
+
+        AvailabilityPlan.AccessPath accessPath = AvailabilityPlan.AccessPath.FULL_SCAN;
+        List<IRoom> candidateRooms = roomsByNumber;
+
+        if (query.type() != null) {
+            List<IRoom> typeRooms = roomIndexes.getRoomsOfType(query.type());
+
+            if (typeRooms.size() < candidateRooms.size()) {
+                accessPath = AvailabilityPlan.AccessPath.TYPE_PARTITION;
+                candidateRooms = typeRooms;
+            }
+        }
+
+        List<IRoom> roomsByPrice = roomIndexes.getRoomsByPrice();
+        int fromPrice = findFirstRoomAbove(roomsByPrice, query.minPrice(), false);
+        int toPrice = findFirstRoomAbove(roomsByPrice, query.maxPrice(), true);
+
+        if (query.searchType() == RoomSearchType.PAID) {
+            fromPrice = Math.max(fromPrice, findFirstRoomAbove(roomsByPrice, 0, true));
+        } else if (query.searchType() == RoomSearchType.FREE) {
+            toPrice = Math.min(toPrice, findFirstRoomAbove(roomsByPrice, 0, true));
+        }
+
+        if (toPrice - fromPrice < candidateRooms.size()) {
+            accessPath = AvailabilityPlan.AccessPath.PRICE_INDEX;
+            candidateRooms = roomsByPrice.subList(fromPrice, Math.max(fromPrice, toPrice));
+        }
 
-        for (String searchTypeRoomNumber : searchTypeRoomNumbers) {
-            List<Reservation> roomReservations = roomNumberToReservations.get(searchTypeRoomNumber);
+        int fromNumber = query.fromRoomNumber() == null
+                ? 0
+                : findFirstRoomAfter(roomsByNumber, query.fromRoomNumber(), false);
+        int toNumber = query.toRoomNumber() == null
+                ? totalRooms
+                : findFirstRoomAfter(roomsByNumber, query.toRoomNumber(), true);
 
-            if (roomReservations == null) {
-                availableRooms.add(roomNumberToRoom.get(searchTypeRoomNumber));
+        if (toNumber - fromNumber < candidateRooms.size()) {
+            accessPath = AvailabilityPlan.AccessPath.ROOM_NUMBER_RANGE;
+            candidateRooms = roomsByNumber.subList(fromNumber, Math.max(fromNumber, toNumber));
+        }
+
+        if (accessPath == AvailabilityPlan.AccessPath.PRICE_INDEX) {
+            List<IRoom> priceRangeRooms = new ArrayList<>(candidateRooms);
+            priceRangeRooms.sort(Comparator.comparing(IRoom::getNumber));
+            candidateRooms = priceRangeRooms;
+        }
+
+        plan[0] = new AvailabilityPlan(accessPath, totalRooms, candidateRooms.size(), 0);
+
+        return candidateRooms;
+    }
+
+    /**
+     * Binary search the first room whose price is above (or at least, if not strict) a price.
+     *
+     * @param roomsByPrice the rooms sorted by price.
+     * @param price        the price, in minor units.
+     * @param isStrict     true to find the first price strictly above, false for the first price at least equal.
+     * @return the index of the first such room (the number of rooms if there is none).
+     */
+    private static int findFirstRoomAbove(List<IRoom> roomsByPrice, long price, boolean isStrict) {
+        int low = 0;
+        int high = roomsByPrice.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long middlePrice = roomsByPrice.get(middle).getPrice();
+
+            if (isStrict ? middlePrice <= price : middlePrice < price) {
+                low = middle + 1;
             } else {
-                for (Reservation reservation : roomReservations) {
-                    boolean isBooked =
-                            checkIsBooked(reservation.getCheckIn(), reservation.getCheckOut(), dates.checkIn(),
-                                    dates.checkOut());
-
-                    if (!isBooked) {
-                        availableRooms.add(reservation.getRoom());
-                    }
-                }
+                high = middle;
             }
         }
 
+        return low;
+    }
+
+    /**
+     * Binary search the first room whose number comes after (or at, if not strict) a room number.
+     *
+     * @param roomsByNumber the rooms sorted by number.
+     * @param roomNumber    the room number.
+     * @param isStrict      true to find the first number strictly after, false for the first number at or after.
+     * @return the index of the first such room (the number of rooms if there is none).
+     */
+    private static int findFirstRoomAfter(List<IRoom> roomsByNumber, String roomNumber, boolean isStrict) {
+        int low = 0;
+        int high = roomsByNumber.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = roomsByNumber.get(middle).getNumber().compareTo(roomNumber);
+
+            if (isStrict ? comparison <= 0 : comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Find the candidate rooms that are available for the desired dates, sorted by room number.
+     *
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @param candidateRooms reads the candidate rooms (sorted by room number) from the snapshot.
+     * @param limit          the maximum number of available rooms to find (the search stops there).
+     * @param roomSearchType the room search type, as recorded in the search event.
+     * @return the first available rooms for the desired dates, at most the limit.
+     */
+    private List<IRoom> findAvailableRooms(Dates dates, Function<ReservationSnapshot, List<IRoom>> candidateRooms,
+                                           int limit, String roomSearchType) {
+        AvailabilitySearchEvent event = new AvailabilitySearchEvent();
+        event.begin();
+
+        long searchStart = System.nanoTime();
+        ReservationSnapshot currentSnapshot = getSnapshot();
+        List<IRoom> searchTypeRooms =
+                withoutSoldOutTypes(currentSnapshot, candidateRooms.apply(currentSnapshot), dates);
+        long filterEnd = System.nanoTime();
+
+        // Only count while recording; a recording that starts during the search gets -1.
+        LongAdder reservationsExamined = event.isEnabled() ? new LongAdder() : null;
+        AvailabilitySearchTask task = new AvailabilitySearchTask(searchTypeRooms, 0, searchTypeRooms.size(),
+                Math.toIntExact(dates.checkIn().toEpochDay()), Math.toIntExact(dates.checkOut().toEpochDay()),
+                room -> currentSnapshot.getRoomStays(room.getNumber()), parallelSearchThreshold, limit,
+                reservationsExamined);
+        boolean isParallel = searchTypeRooms.size() > parallelSearchThreshold;
+
+        List<IRoom> availableRooms = isParallel ? invokeInterruptibly(task) : task.computeSequentially();
+        long searchEnd = System.nanoTime();
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.searchType = roomSearchType;
+            event.checkInDay = dates.checkIn().toEpochDay();
+            event.nights = (int) (dates.checkOut().toEpochDay() - dates.checkIn().toEpochDay());
+            event.roomsScanned = searchTypeRooms.size();
+            event.reservationsExamined = reservationsExamined == null ? -1 : reservationsExamined.sum();
+            event.resultSize = availableRooms.size();
+            event.parallel = isParallel;
+            event.filterDuration = filterEnd - searchStart;
+            event.scanDuration = searchEnd - filterEnd;
+            event.commit();
+        }
+
         return availableRooms;
     }
 
     /**
-     * Get the room numbers based on the search type.
+     * Leave out the rooms of the types that have no room left to sell on some night of a stay. A room of such a type
+     * may have no reservation of its own, but the free rooms of its type are all promised to pending room type
+     * allotments.
+     *
+     * @param currentSnapshot the snapshot the candidate rooms were read from.
+     * @param rooms           the candidate rooms.
+     * @param dates           the check-in and check-out dates.
+     * @return the candidate rooms of the types that can still be sold for those dates.
+     */
+    private static List<IRoom> withoutSoldOutTypes(ReservationSnapshot currentSnapshot, List<IRoom> rooms,
+                                                   Dates dates) {
+        EnumSet<RoomType> soldOutTypes = EnumSet.noneOf(RoomType.class);
+
+        for (RoomType type : RoomType.values()) {
+            if (getFreeRoomCount(currentSnapshot, type, dates) < 1) {
+                soldOutTypes.add(type);
+            }
+        }
+
+        return soldOutTypes.isEmpty()
+                ? rooms
+                : rooms.stream().filter(room -> !soldOutTypes.contains(room.getType())).toList();
+    }
+
+    /**
+     * Run a parallel search in the common pool, waiting interruptibly so that an interrupted caller stops waiting and
+     * cancels the search.
      *
+     * @param task the search task.
+     * @return the available rooms.
+     * @throws CancellationException if the calling thread is interrupted.
+     */
+    private static List<IRoom> invokeInterruptibly(AvailabilitySearchTask task) throws CancellationException {
+        try {
+            return ForkJoinPool.commonPool().submit(task).get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new CancellationException("The availability search was cancelled.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Find a block of rooms that are free together for the same dates, in one availability pass.
+     * <p>
+     * The free rooms matching the type and price bound are ordered by room number (numerically when the room numbers
+     * are numbers), and a window of the requested size slides over them to propose the rooms whose numbers are the
+     * closest together.
+     *
+     * @param dates     the check-in and check-out dates.
+     * @param roomCount the number of rooms needed.
+     * @param type      the room type, or null for any type.
+     * @param maxPrice  the maximum price per night, in minor units ({@link Long#MAX_VALUE} for no bound).
+     * @return the room block.
+     * @throws IllegalArgumentException if the room count is not positive.
+     */
+    public RoomBlock findRoomBlock(Dates dates, int roomCount, RoomType type, long maxPrice)
+            throws IllegalArgumentException {
+        if (roomCount < 1) {
+            throw new IllegalArgumentException("The number of rooms must be a positive number.");
+        }
+
+        Predicate<IRoom> roomFilter = room -> (type == null || room.getType() == type) && room.getPrice() <= maxPrice;
+        List<IRoom> availableRooms = new ArrayList<>(findAvailableRooms(dates,
+                currentSnapshot -> currentSnapshot.getAllRooms().stream().filter(roomFilter).toList(),
+                Integer.MAX_VALUE, "BLOCK"));
+
+        if (availableRooms.size() < roomCount) {
+            return new RoomBlock(dates, roomCount, availableRooms.size(), List.of());
+        }
+
+        availableRooms.sort(Comparator.comparing(ReservationService::getRoomNumberValue)
+                .thenComparing(IRoom::getNumber));
+
+        int bestStart = 0;
+        long bestSpan = Long.MAX_VALUE;
+
+        for (int start = 0; start + roomCount <= availableRooms.size(); start++) {
+            long span = getSpan(availableRooms.get(start), availableRooms.get(start + roomCount - 1), roomCount);
+
+            if (span < bestSpan) {
+                bestStart = start;
+                bestSpan = span;
+            }
+        }
+
+        return new RoomBlock(dates, roomCount, availableRooms.size(),
+                List.copyOf(availableRooms.subList(bestStart, bestStart + roomCount)));
+    }
+
+    /**
+     * Get how far apart the first and last rooms of a block are: the difference of their numbers when both are
+     * numbers, otherwise the number of rooms in the block.
+     *
+     * @param first     the first room of the block.
+     * @param last      the last room of the block.
+     * @param roomCount the number of rooms in the block.
+     * @return the block span.
+     */
+    private static long getSpan(IRoom first, IRoom last, int roomCount) {
+        long firstNumber = getRoomNumberValue(first);
+        long lastNumber = getRoomNumberValue(last);
+
+        return firstNumber == Long.MAX_VALUE || lastNumber == Long.MAX_VALUE ? roomCount : lastNumber - firstNumber;
+    }
+
+    /**
+     * Get the numeric value of a room number.
+     *
+     * @param room the room.
+     * @return the room number as a number, or {@link Long#MAX_VALUE} if it is not a number.
+     */
+    private static long getRoomNumberValue(IRoom room) {
+        String number = room.getNumber();
+
+        if (number.isEmpty() || number.length() > 18 || !number.chars().allMatch(Character::isDigit)) {
+            return Long.MAX_VALUE;
+        }
+
+        return Long.parseLong(number);
+    }
+
+    /**
+     * Find the available rooms for the desired dates, quoted and sorted by total stay price (cheapest first).
+     *
+     * @param dates          the check-in and check-out dates for this reservation.
      * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
-     * @return the room numbers.
+     * @return the stay quotes of the available rooms.
      */
-    private List<String> getSearchTypeRoomNumbers(String roomSearchType) {
-        List<IRoom> allHotelRooms = roomNumberToRoom.values().stream().toList();
+    public List<StayQuote> findAvailableRoomsByStayPrice(Dates dates, String roomSearchType) {
+        List<StayQuote> stayQuotes = new ArrayList<>();
 
-        List<IRoom> searchTypeRooms = switch (roomSearchType) {
-            case "P" -> allHotelRooms.stream().filter(room -> !room.isFree()).toList();
-            case "F" -> allHotelRooms.stream().filter(IRoom::isFree).toList();
-            default -> allHotelRooms;
-        };
+        for (IRoom room : findAvailableRooms(dates, roomSearchType)) {
+            stayQuotes.add(quoteStay(room, dates));
+        }
+
+        stayQuotes.sort(Comparator.comparingLong(StayQuote::totalPrice));
+
+        return stayQuotes;
+    }
+
+    /**
+     * Quote the total price of a stay in a room in constant time, using the room nightly rates (or its price per
+     * night on the nights without a specific rate).
+     *
+     * @param room  the room.
+     * @param dates the check-in and check-out dates.
+     * @return the stay quote.
+     */
+    public StayQuote quoteStay(IRoom room, Dates dates) {
+        long checkIn = dates.checkIn().toEpochDay();
+        long checkOut = dates.checkOut().toEpochDay();
+        RateCalendar rateCalendar = roomNumberToRateCalendar.get(room.getNumber());
+
+        long totalPrice = rateCalendar == null
+                ? Math.multiplyExact(room.getPrice(), checkOut - checkIn)
+                : rateCalendar.quote(checkIn, checkOut);
+
+        return new StayQuote(room, dates, totalPrice);
+    }
+
+    /**
+     * Set the price per night of a room for the nights of a date range (e.g., seasonal or weekend rates).
+     *
+     * @param roomNumber the room number.
+     * @param dates      the first night and the day after the last night.
+     * @param rate       the price per night, in minor units (see {@link model.Money}).
+     * @throws IllegalArgumentException if the room does not exist or the rate is negative.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public synchronized void setNightlyRate(String roomNumber, Dates dates, long rate)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
 
-        return searchTypeRooms.stream().map(IRoom::getNumber).toList();
+        IRoom room = getRoom(roomNumber);
+
+        if (room == null) {
+            throw new IllegalArgumentException("That room number does not exist.");
+        }
+
+        if (rate < 0) {
+            throw new IllegalArgumentException("The price must be a positive number.");
+        }
+
+        roomNumberToRateCalendar.compute(roomNumber, (number, rateCalendar) ->
+                (rateCalendar == null ? RateCalendar.of(room.getPrice()) : rateCalendar)
+                        .withRate(dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay(), rate));
+        replicationService.recordNightlyRate(roomNumber, dates, rate);
+    }
+
+    /**
+     * Set how many rooms a search must match before it runs in parallel (also the number of rooms each fork/join task
+     * checks on its own). Defaults to the {@code hotel.search.parallel-threshold} system property, or 2048.
+     *
+     * @param parallelSearchThreshold the threshold.
+     * @throws IllegalArgumentException if the threshold is not positive.
+     */
+    public void setParallelSearchThreshold(int parallelSearchThreshold) throws IllegalArgumentException {
+        if (parallelSearchThreshold < 1) {
+            throw new IllegalArgumentException("The parallel search threshold must be a positive number.");
+        }
+
+        this.parallelSearchThreshold = parallelSearchThreshold;
+    }
+
+    /**
+     * Get how many rooms of a type are free on every night of the stay (including the rooms held by type allotments
+     * that are still waiting for a room to be assigned).
+     *
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates.
+     * @return the number of free rooms of that type.
+     */
+    public int getFreeRoomCount(RoomType type, Dates dates) {
+        return getFreeRoomCount(getSnapshot(), type, dates);
+    }
+
+    /**
+     * Get how many rooms of a type are free on every night of the stay in a snapshot.
+     *
+     * @param currentSnapshot the snapshot to read.
+     * @param type            the room type.
+     * @param dates           the check-in and check-out dates.
+     * @return the number of free rooms of that type.
+     */
+    private static int getFreeRoomCount(ReservationSnapshot currentSnapshot, RoomType type, Dates dates) {
+        return currentSnapshot.getInventory(type)
+                .getMinFree(dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay());
+    }
+
+    /**
+     * Get the longest stay a room allows from a check-in date.
+     *
+     * @param room    the room.
+     * @param checkIn the desired check-in date.
+     * @return the stay until the next reservation or hold of the room starts, or null if the room is occupied or held
+     * on the check-in night.
+     */
+    public ExtendableStay getExtendableStay(IRoom room, LocalDate checkIn) {
+        NavigableMap<LocalDate, Reservation> checkInToReservation =
+                roomNumberToCheckInToReservation.get(room.getNumber());
+        LocalDate nextCheckIn = null;
+
+        if (checkInToReservation != null) {
+            Map.Entry<LocalDate, Reservation> previous = checkInToReservation.floorEntry(checkIn);
+
+            if (previous != null && previous.getValue().getCheckOut().isAfter(checkIn)) {
+                return null;
+            }
+
+            nextCheckIn = checkInToReservation.higherKey(checkIn);
+        }
+
+        // The held dates follow the reservations in the published room stays.
+        RoomStays roomStays = getSnapshot().getRoomStays(room.getNumber());
+        long day = checkIn.toEpochDay();
+
+        for (int index = roomStays.reservations().size(); index < roomStays.checkIns().length; index++) {
+            int heldCheckIn = roomStays.checkIns()[index];
+
+            if (heldCheckIn <= day && day < roomStays.checkOuts()[index]) {
+                return null;
+            }
+
+            if (heldCheckIn > day && (nextCheckIn == null || heldCheckIn < nextCheckIn.toEpochDay())) {
+                nextCheckIn = LocalDate.ofEpochDay(heldCheckIn);
+            }
+        }
+
+        return new ExtendableStay(room, checkIn, nextCheckIn);
+    }
+
+    /**
+     * Get the longest stay every room of a type allows from a check-in date, in one pass over the rooms.
+     *
+     * @param type    the room type.
+     * @param checkIn the desired check-in date.
+     * @return the extendable stays of the rooms that are free and not held on the check-in night, sorted by room
+     * number.
+     */
+    public List<ExtendableStay> findExtendableStays(RoomType type, LocalDate checkIn) {
+        List<ExtendableStay> extendableStays = new ArrayList<>();
+
+        for (IRoom room : roomNumberToRoom.values()) {
+            if (room.getType() != type) {
+                continue;
+            }
+
+            ExtendableStay extendableStay = getExtendableStay(room, checkIn);
+
+            if (extendableStay != null) {
+                extendableStays.add(extendableStay);
+            }
+        }
+
+        extendableStays.sort(Comparator.comparing(extendableStay -> extendableStay.room().getNumber()));
+
+        return extendableStays;
+    }
+
+    /**
+     * Get the room filter based on the search type.
+     *
+     * @param roomSearchType the room search type.
+     * @return the room filter.
+     */
+    private Predicate<IRoom> getSearchTypeFilter(RoomSearchType roomSearchType) {
+        return switch (roomSearchType) {
+            case PAID -> room -> !room.isFree();
+            case FREE -> IRoom::isFree;
+            case ALL -> room -> true;
+        };
     }
 
     /**
@@ -134,68 +704,762 @@ final public class ReservationService {
     }
 
     /**
-     * Print all reservations.
+     * Get the reservations for a customer, optionally reading through to the reservations archive.
+     *
+     * @param customer        the customer.
+     * @param includeArchived true to also read the archived (past) reservations of the customer.
+     * @return the customer reservations, archived ones first.
+     * @throws java.io.UncheckedIOException if the archive cannot be read.
+     */
+    public List<Reservation> getCustomerReservations(Customer customer, boolean includeArchived) {
+        if (!includeArchived) {
+            return getCustomerReservations(customer);
+        }
+
+        List<Reservation> customerReservations = reservationArchive.read(customer.getEmail(), this::getRoom);
+        customerReservations.addAll(getCustomerReservations(customer));
+
+        return customerReservations;
+    }
+
+    /**
+     * Move the reservations that check out before a cutoff date from memory to the compressed reservations archive.
+     * The daily guest reports of the days before the cutoff are dropped as well.
+     *
+     * @param cutoff the cutoff date; reservations with a check-out before it are archived.
+     * @return the number of archived reservations.
+     * @throws java.io.UncheckedIOException if the archive cannot be written (nothing is removed from memory then).
+     */
+    public synchronized int archiveReservations(LocalDate cutoff) {
+        List<Reservation> pastReservations = new ArrayList<>();
+
+        for (List<Reservation> roomReservations : roomNumberToReservations.values()) {
+            for (Reservation reservation : roomReservations) {
+                if (reservation.getCheckOut().isBefore(cutoff)) {
+                    pastReservations.add(reservation);
+                }
+            }
+        }
+
+        reservationArchive.append(pastReservations);
+
+        for (Iterator<Map.Entry<String, List<Reservation>>> iterator =
+             roomNumberToReservations.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, List<Reservation>> entry = iterator.next();
+            List<Reservation> currentReservations = entry.getValue().stream()
+                    .filter(reservation -> !reservation.getCheckOut().isBefore(cutoff))
+                    .toList();
+
+            if (currentReservations.size() == entry.getValue().size()) {
+                continue;
+            }
+
+            if (currentReservations.isEmpty()) {
+                iterator.remove();
+                roomNumberToCheckInToReservation.remove(entry.getKey());
+            } else {
+                entry.setValue(new ArrayList<>(currentReservations));
+                roomNumberToCheckInToReservation.get(entry.getKey()).headMap(cutoff, false).values()
+                        .removeIf(reservation -> reservation.getCheckOut().isBefore(cutoff));
+            }
+
+            publishRoomStays(entry.getKey());
+        }
+
+        dailyGuestIndex.removeAll(pastReservations);
+        occupancyCounters.removeBefore(cutoff.toEpochDay());
+
+        return pastReservations.size();
+    }
+
+    /**
+     * Get the front desk report of a day: who arrives, who departs and who stays in house that night. Reads that day's
+     * bucket of the daily guest index, and the arrivals of the preceding days up to the longest stay for the in-house
+     * guests.
+     *
+     * @param date the day.
+     * @return the daily guest report (each list sorted by room number).
+     */
+    public DailyGuestReport getDailyGuestReport(LocalDate date) {
+        long day = date.toEpochDay();
+
+        return new DailyGuestReport(date, dailyGuestIndex.getArrivals(day), dailyGuestIndex.getDepartures(day),
+                dailyGuestIndex.getInHouse(day, day + 1));
+    }
+
+    /**
+     * Get the occupancy of consecutive nights, per room type, from the occupied-room counters maintained on every
+     * booking. A room counts as occupied when it is reserved, held or promised to a pending room type allotment, as in
+     * the room type inventory. Costs O(nights), whatever the number of reservations.
+     *
+     * @param firstNight the first night.
+     * @param nights     the number of nights.
+     * @return the occupancy of each night.
+     * @throws IllegalArgumentException if the number of nights is not between 1 and 366.
+     */
+    public List<DailyOccupancy> getOccupancy(LocalDate firstNight, int nights) throws IllegalArgumentException {
+        if (nights < 1 || nights > 366) {
+            throw new IllegalArgumentException("The number of nights must be between 1 and 366.");
+        }
+
+        ReservationSnapshot currentSnapshot = getSnapshot();
+        Map<RoomType, Integer> totalRooms = new EnumMap<>(RoomType.class);
+
+        for (RoomType type : RoomType.values()) {
+            totalRooms.put(type, currentSnapshot.getInventory(type).getCapacity());
+        }
+
+        Map<RoomType, Integer> totalRoomsCopy = Map.copyOf(totalRooms);
+        List<DailyOccupancy> occupancy = new ArrayList<>(nights);
+
+        for (int night = 0; night < nights; night++) {
+            LocalDate date = firstNight.plusDays(night);
+            Map<RoomType, Integer> occupiedRooms = new EnumMap<>(RoomType.class);
+
+            for (RoomType type : RoomType.values()) {
+                occupiedRooms.put(type, occupancyCounters.get(type, date.toEpochDay()));
+            }
+
+            occupancy.add(new DailyOccupancy(date, Map.copyOf(occupiedRooms), totalRoomsCopy));
+        }
+
+        return occupancy;
+    }
+
+    /**
+     * Get the reservations that are in house on at least one night of a date range.
+     *
+     * @param dates the first night and the day after the last night.
+     * @return the in-house reservations, sorted by room number.
+     */
+    public List<Reservation> getInHouseReservations(Dates dates) {
+        return dailyGuestIndex.getInHouse(dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay());
+    }
+
+    /**
+     * Print all reservations (from the latest snapshot).
      */
     public void printAllReservations() {
-        System.out.println(roomNumberToReservations);
+        System.out.println(getSnapshot());
     }
 
     /**
-     * Get all rooms.
+     * Get all rooms (from the latest snapshot).
      *
      * @return all rooms.
      */
     public List<IRoom> getAllRooms() {
-        return roomNumberToRoom.values().stream().sorted(Comparator.comparing(IRoom::getNumber)).toList();
+        return getSnapshot().getAllRooms();
+    }
+
+    /**
+     * Get the latest published point-in-time view of the rooms and reservations. Long-running reports should read one
+     * snapshot instead of the live collections.
+     *
+     * @return the latest snapshot.
+     */
+    public ReservationSnapshot getSnapshot() {
+        return snapshot.get();
     }
 
     /**
-     * Add rooms and reservations test data.
+     * Run an action while no room, nightly rate, reservation or allotment can be written, e.g. to take a replication
+     * snapshot that matches the replication log.
+     *
+     * @param action the action.
+     * @param <T>    the type of the action result.
+     * @return the action result.
      */
-    public void addTestData(Customer[] customers) {
-        addRoom(new Room("100", 120.0, RoomType.SINGLE));
-        addRoom(new Room("101", 130.0, RoomType.DOUBLE));
-        addRoom(new Room("102", 125.0, RoomType.SINGLE));
-        addRoom(new Room("103", 100.0, RoomType.DOUBLE));
-        addRoom(new Room("104", 145.0, RoomType.DOUBLE));
-        addRoom(new Room("105", 100.0, RoomType.SINGLE));
-        addRoom(new Room("106", 250.0, RoomType.DOUBLE));
-        addRoom(new Room("107", 0.0, RoomType.SINGLE));
+    synchronized <T> T callExclusively(Supplier<T> action) {
+        return action.get();
+    }
+
+    /**
+     * Get the nightly rate calendars of the rooms that have explicit rates.
+     *
+     * @return a read-only view of the rate calendars, by room number.
+     */
+    Map<String, RateCalendar> getRateCalendars() {
+        return Collections.unmodifiableMap(roomNumberToRateCalendar);
+    }
+
+    /**
+     * Add rooms and reservations test data, generated from the spec so that the same spec always generates the same
+     * dataset. Room i is on floor i / 100 + 1; about 55% of the rooms are doubles, 3% are free and the paid prices are
+     * log-normally spread around $80 (single) and $120 (double). The reservations are spread evenly over the rooms,
+     * one after the other with 0 to 3 free nights between stays of mostly 1 to 5 nights, so they never overlap.
+     * <p>
+     * Each room and its reservations are generated in parallel as plain data keyed by the room index, then applied in
+     * one sequential pass in index order, so the same spec always leaves the same state (and replication log). The room
+     * stays are published once per room instead of once per reservation. Generated stays that overlap a reservation
+     * already in the system, or that would take a room promised to a room type allotment, are skipped.
+     *
+     * @param spec      the test dataset spec.
+     * @param customers the test customers.
+     * @return the number of reservations loaded.
+     * @throws IllegalStateException if this server is a read-only replica.
+     */
+    public synchronized int addTestData(TestDataSpec spec, List<Customer> customers) throws IllegalStateException {
+        replicationService.checkWritable();
+
+        int reservationsPerRoom = spec.rooms() == 0 ? 0 : spec.reservations() / spec.rooms();
+        int extraReservations = spec.rooms() == 0 ? 0 : spec.reservations() % spec.rooms();
 
-        System.out.println("Rooms: " + roomNumberToRoom);
+        List<TestRoom> testRooms = IntStream.range(0, spec.rooms()).parallel()
+                .mapToObj(index -> generateTestRoom(spec, customers, index,
+                        reservationsPerRoom + (index < extraReservations ? 1 : 0)))
+                .toList();
 
-        reserveRoom(customers[0], roomNumberToRoom.get("100"),
-                new Dates(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 15)));
-        reserveRoom(customers[1], roomNumberToRoom.get("101"),
-                new Dates(LocalDate.of(2026, 1, 16), LocalDate.of(2026, 1, 31)));
+        for (TestRoom testRoom : testRooms) {
+            addRoom(testRoom.room());
+        }
+
+        List<Reservation> loadedReservations = new ArrayList<>();
+
+        for (TestRoom testRoom : testRooms) {
+            loadedReservations.addAll(loadTestReservations(testRoom));
+        }
+
+        dailyGuestIndex.addAll(loadedReservations);
+
+        System.out.println("Rooms: " + spec.rooms() + " test rooms (" + roomNumberToRoom.size() + " in total).");
+        System.out.println("Reservations: " + loadedReservations.size() + " test reservations.");
+
+        return loadedReservations.size();
+    }
+
+    /**
+     * Generate a test room and its reservations.
+     *
+     * @param spec             the test dataset spec.
+     * @param customers        the test customers.
+     * @param index            the room index.
+     * @param reservationCount the number of reservations of the room.
+     * @return the test room.
+     */
+    private static TestRoom generateTestRoom(TestDataSpec spec, List<Customer> customers, int index,
+                                                  int reservationCount) {
+        SplittableRandom random = new SplittableRandom(spec.seed() ^ ~(index * 0x9E3779B97F4A7C15L));
+        String number = String.valueOf((index / 100 + 1) * 100 + index % 100);
+        RoomType type = random.nextDouble() < 0.55 ? RoomType.DOUBLE : RoomType.SINGLE;
+        double basePrice = type == RoomType.DOUBLE ? 120 : 80;
+        long price = Money.ofUnits(Math.max(20, Math.round(basePrice * Math.exp(0.25 * random.nextGaussian()))));
+        IRoom room = random.nextDouble() < 0.03
+                ? new FreeRoom(number, type)
+                : new Room(number, price, type);
+
+        List<Reservation> reservations = new ArrayList<>(reservationCount);
+        LocalDate checkIn = spec.firstNight().plusDays(random.nextInt(4));
+
+        for (int stay = 0; stay < reservationCount; stay++) {
+            int nights = 1 + Math.min(13, (int) (-Math.log(1 - random.nextDouble()) * 2.5));
+            LocalDate checkOut = checkIn.plusDays(nights);
+
+            reservations.add(new Reservation(customers.get(random.nextInt(customers.size())), room, checkIn,
+                    checkOut));
+            checkIn = checkOut.plusDays(random.nextInt(4));
+        }
+
+        return new TestRoom(room, reservations);
+    }
+
+    /**
+     * Load the generated reservations of a test room, publishing the room stays once.
+     *
+     * @param testRoom the test room.
+     * @return the reservations loaded (not yet in the daily guest index).
+     */
+    private List<Reservation> loadTestReservations(TestRoom testRoom) {
+        String roomNumber = testRoom.room().getNumber();
+        NavigableMap<LocalDate, Reservation> checkInToReservation =
+                roomNumberToCheckInToReservation.computeIfAbsent(roomNumber, number -> new ConcurrentSkipListMap<>());
+        List<Reservation> roomReservations = new ArrayList<>(roomNumberToReservations.getOrDefault(roomNumber,
+                List.of()));
+        List<Reservation> loadedReservations = new ArrayList<>(testRoom.reservations().size());
+
+        for (Reservation reservation : testRoom.reservations()) {
+            Dates dates = new Dates(reservation.getCheckIn(), reservation.getCheckOut());
+
+            if (isRoomBooked(roomNumber, dates) || getFreeRoomCount(reservation.getRoom().getType(), dates) < 1) {
+                continue;
+            }
+
+            bookNights(reservation.getRoom().getType(), dates);
+            roomReservations.add(reservation);
+            checkInToReservation.put(reservation.getCheckIn(), reservation);
+            replicationService.recordReservation(reservation);
+            loadedReservations.add(reservation);
+        }
+
+        if (!loadedReservations.isEmpty()) {
+            roomNumberToReservations.put(roomNumber, roomReservations);
+            publishRoomStays(roomNumber);
+        }
 
-        System.out.println("Reservations: " + roomNumberToReservations);
+        return loadedReservations;
     }
 
     /**
      * Add a room to the roomNumberToRoom map.
      *
      * @param room the room.
+     * @throws IllegalStateException if this server is a read-only replica.
      */
-    public void addRoom(IRoom room) {
-        roomNumberToRoom.put(room.getNumber(), room);
+    public synchronized void addRoom(IRoom room) throws IllegalStateException {
+        replicationService.checkWritable();
+
+        IRoom previousRoom = roomNumberToRoom.put(room.getNumber(), room);
+
+        snapshot.updateAndGet(current -> {
+            ReservationSnapshot updated = current;
+
+            if (previousRoom != null) {
+                updated = updated.withInventory(previousRoom.getType(),
+                        updated.getInventory(previousRoom.getType()).withRoomRemoved());
+            }
+
+            return updated.withInventory(room.getType(), updated.getInventory(room.getType()).withRoomAdded())
+                    .withRoom(room);
+        });
+
+        if (previousRoom != null) {
+            roomNumberToRateCalendar.remove(room.getNumber());
+        }
+
+        replicationService.recordRoom(room);
     }
 
     /**
-     * Reserve a room.
+     * Reserve a room. The availability check and the booking are one atomic step, so two agents can never book the
+     * same room for overlapping dates.
      *
      * @param customer the customer that is reserving the room.
      * @param room     the room that is being reserved.
      * @param dates    the check-in and check-out dates for this reservation.
+     * @return the reservation.
+     * @throws IllegalArgumentException if the room is already booked for some of those dates, or the free rooms of its
+     *                                  type are all promised to room type allotments.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public synchronized Reservation reserveRoom(Customer customer, IRoom room, Dates dates)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
+
+        if (isRoomBooked(room.getNumber(), dates)) {
+            throw new IllegalArgumentException("That room is already booked for those dates.");
+        }
+
+        checkRoomTypeFree(room.getType(), dates);
+
+        BookingEvent event = new BookingEvent();
+        event.begin();
+
+        bookNights(room.getType(), dates);
+
+        Reservation reservation = addReservation(new Reservation(customer, room, dates.checkIn(), dates.checkOut()));
+        replicationService.recordReservation(reservation);
+
+        commitBookingEvent(event, room.getNumber(), room.getType(), dates);
+
+        return reservation;
+    }
+
+    /**
+     * Reserve a room at most once per idempotency key. A retry with the same key (within the
+     * {@code hotel.idempotency.ttl-seconds} window, 600 by default) returns the reservation of the first request, or
+     * throws its exception, without booking again. At most {@code hotel.idempotency.max-entries} keys (100000 by
+     * default) are remembered; the oldest completed ones are forgotten first. Reusing a key for another customer,
+     * room or dates is an error.
+     *
+     * @param idempotencyKey the client-chosen key identifying the booking request.
+     * @param customer       the customer that is reserving the room.
+     * @param room           the room that is being reserved.
+     * @param dates          the check-in and check-out dates for this reservation.
+     * @return the reservation.
+     * @throws IllegalArgumentException if the room is already booked for some of those dates, or the key was already
+     *                                  used for another booking request.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public Reservation reserveRoom(String idempotencyKey, Customer customer, IRoom room, Dates dates) {
+        String fingerprint = customer.getEmail() + "|" + room.getNumber() + "|" + dates.checkIn() + "|"
+                + dates.checkOut();
+
+        return bookingIdempotencyCache.getOrRun(idempotencyKey, fingerprint, () -> reserveRoom(customer, room, dates));
+    }
+
+    /**
+     * Hold a room for the default time-to-live ({@code hotel.hold.ttl-seconds}, 600 by default).
+     *
+     * @param room  the room to hold.
+     * @param dates the check-in and check-out dates to hold.
+     * @return the room hold.
+     * @throws IllegalArgumentException if the room is already booked or held for some of those dates.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public RoomHold holdRoom(IRoom room, Dates dates) throws IllegalArgumentException, IllegalStateException {
+        return holdRoom(room, dates, defaultHoldTtl);
+    }
+
+    /**
+     * Hold a room: until the hold is confirmed, released or expires, the room counts as occupied for those dates, so
+     * other searches do not offer it and other bookings cannot take it. Holds are not replicated; only the
+     * reservation they are confirmed into is.
+     *
+     * @param room  the room to hold.
+     * @param dates the check-in and check-out dates to hold.
+     * @param ttl   how long the hold lasts if it is not confirmed (rounded up to the hold tick).
+     * @return the room hold.
+     * @throws IllegalArgumentException if the time-to-live is not positive, the room is already booked or held for
+     *                                  some of those dates, or the free rooms of its type are all promised to room
+     *                                  type allotments.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public synchronized RoomHold holdRoom(IRoom room, Dates dates, Duration ttl)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
+
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("The hold time-to-live must be positive.");
+        }
+
+        if (isRoomBooked(room.getNumber(), dates)) {
+            throw new IllegalArgumentException("That room is already booked for those dates.");
+        }
+
+        checkRoomTypeFree(room.getType(), dates);
+        bookNights(room.getType(), dates);
+
+        RoomHold hold = new RoomHold(nextHoldId++, room, dates, Instant.now().plus(ttl));
+
+        roomNumberToHolds.computeIfAbsent(room.getNumber(), number -> new ArrayList<>()).add(hold);
+        holdIdToTimeout.put(hold.id(), holdWheel.schedule(hold, ttl.toNanos(), System.nanoTime()));
+        publishRoomStays(room.getNumber());
+        startHoldExpiry();
+
+        return hold;
+    }
+
+    /**
+     * Confirm a hold, turning it into a reservation of the held room and dates.
+     *
+     * @param hold     the room hold.
+     * @param customer the customer that is reserving the room.
+     * @return the reservation.
+     * @throws IllegalArgumentException if the hold already expired, was confirmed or was released.
+     * @throws IllegalStateException    if this server is a read-only replica, or the room type inventory lost track
+     *                                  of the hold.
+     */
+    public synchronized Reservation confirmHold(RoomHold hold, Customer customer)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
+
+        // The hold already took one room of its type on every night, so the inventory must still count it.
+        if (getFreeRoomCount(hold.room().getType(), hold.dates()) < 0) {
+            throw new IllegalStateException("The room type inventory does not count the hold.");
+        }
+
+        if (!removeHold(hold)) {
+            throw new IllegalArgumentException("That room hold has expired.");
+        }
+
+        BookingEvent event = new BookingEvent();
+        event.begin();
+
+        // The nights were already booked against the room type when the hold was created.
+        Reservation reservation = addReservation(new Reservation(customer, hold.room(), hold.dates().checkIn(),
+                hold.dates().checkOut()));
+        replicationService.recordReservation(reservation);
+
+        commitBookingEvent(event, hold.room().getNumber(), hold.room().getType(), hold.dates());
+
+        return reservation;
+    }
+
+    /**
+     * Release a hold before it expires (nothing happens if it already expired, was confirmed or was released).
+     *
+     * @param hold the room hold.
+     */
+    public synchronized void releaseHold(RoomHold hold) {
+        if (removeHold(hold)) {
+            releaseNights(hold.room().getType(), hold.dates());
+        }
+    }
+
+    /**
+     * Reserve any room of a type. The room type allotment is booked right away and the concrete room is assigned later
+     * with {@link #assignRoom(RoomTypeAllotment, IRoom)}.
+     *
+     * @param customer the customer that is reserving the room.
+     * @param type     the room type.
+     * @param dates    the check-in and check-out dates for this reservation.
+     * @return the room type allotment.
+     * @throws IllegalArgumentException if no room of that type is free on every night of the stay.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public synchronized RoomTypeAllotment reserveRoomType(Customer customer, RoomType type, Dates dates)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
+
+        checkRoomTypeFree(type, dates);
+
+        BookingEvent event = new BookingEvent();
+        event.begin();
+
+        bookNights(type, dates);
+
+        RoomTypeAllotment allotment = new RoomTypeAllotment(customer, type, dates);
+        pendingAllotments.add(allotment);
+        replicationService.recordRoomTypeAllotment(allotment);
+
+        commitBookingEvent(event, null, type, dates);
+
+        return allotment;
+    }
+
+    /**
+     * Get the room type allotments that are still waiting for a room to be assigned.
+     *
+     * @return the pending room type allotments.
      */
-    public void reserveRoom(Customer customer, IRoom room, Dates dates) {
-        List<Reservation> previousReservations = roomNumberToReservations.get(room.getNumber());
+    public synchronized List<RoomTypeAllotment> getPendingAllotments() {
+        return List.copyOf(pendingAllotments);
+    }
+
+    /**
+     * Assign a concrete room to a room type allotment, turning it into a reservation.
+     *
+     * @param allotment the pending room type allotment.
+     * @param room      the room to assign.
+     * @throws IllegalArgumentException if the allotment is not pending, the room type does not match or the room is
+     *                                  already booked for the allotment dates.
+     * @throws IllegalStateException    if this server is a read-only replica.
+     */
+    public synchronized void assignRoom(RoomTypeAllotment allotment, IRoom room)
+            throws IllegalArgumentException, IllegalStateException {
+        replicationService.checkWritable();
+
+        if (!pendingAllotments.contains(allotment)) {
+            throw new IllegalArgumentException("That room type allotment is not pending.");
+        }
+
+        if (room.getType() != allotment.type()) {
+            throw new IllegalArgumentException("The room type does not match the allotment.");
+        }
+
+        Dates dates = allotment.dates();
+
+        if (isRoomBooked(room.getNumber(), dates)) {
+            throw new IllegalArgumentException("That room is already booked for the allotment dates.");
+        }
+
+        pendingAllotments.remove(allotment);
+
+        // The nights were already booked against the room type when the allotment was created.
+        addReservation(new Reservation(allotment.customer(), room, dates.checkIn(), dates.checkOut()));
+        replicationService.recordRoomAssignment(allotment, room);
+    }
+
+    /**
+     * Check that at least one room of a type is free on every night of a stay, once the reservations, holds and
+     * pending room type allotments are counted.
+     *
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates.
+     * @throws IllegalArgumentException if no room of that type is free on some night of the stay.
+     */
+    private void checkRoomTypeFree(RoomType type, Dates dates) throws IllegalArgumentException {
+        if (getFreeRoomCount(type, dates) < 1) {
+            throw new IllegalArgumentException("No " + type.name().toLowerCase() + " rooms are free for those dates.");
+        }
+    }
+
+    /**
+     * Check if a room has a reservation or a hold overlapping a stay. The reservations of a room never overlap, so only
+     * the latest one that checks in before the desired check-out can.
+     *
+     * @param roomNumber the room number.
+     * @param dates      the desired check-in and check-out dates.
+     * @return true if the room is booked or held on at least one night of the stay.
+     */
+    private boolean isRoomBooked(String roomNumber, Dates dates) {
+        for (RoomHold hold : roomNumberToHolds.getOrDefault(roomNumber, List.of())) {
+            if (checkIsBooked(hold.dates().checkIn(), hold.dates().checkOut(), dates.checkIn(), dates.checkOut())) {
+                return true;
+            }
+        }
+
+        NavigableMap<LocalDate, Reservation> checkInToReservation = roomNumberToCheckInToReservation.get(roomNumber);
+
+        if (checkInToReservation == null) {
+            return false;
+        }
+
+        Map.Entry<LocalDate, Reservation> previous = checkInToReservation.lowerEntry(dates.checkOut());
+
+        return previous != null && previous.getValue().getCheckOut().isAfter(dates.checkIn());
+    }
+
+    /**
+     * Remove a pending hold: cancel its timeout and publish the room stays without it.
+     *
+     * @param hold the hold.
+     * @return true if the hold was pending, false if it already expired, was confirmed or was released.
+     */
+    private boolean removeHold(RoomHold hold) {
+        TimingWheel.Timeout<RoomHold> timeout = holdIdToTimeout.remove(hold.id());
+
+        if (timeout == null) {
+            return false;
+        }
+
+        holdWheel.cancel(timeout);
+        forgetHold(hold);
+
+        return true;
+    }
+
+    /**
+     * Remove a hold from the holds of its room and publish the room stays without it.
+     *
+     * @param hold the hold.
+     */
+    private void forgetHold(RoomHold hold) {
+        String roomNumber = hold.room().getNumber();
+        List<RoomHold> holds = roomNumberToHolds.get(roomNumber);
+
+        holds.remove(hold);
+
+        if (holds.isEmpty()) {
+            roomNumberToHolds.remove(roomNumber);
+        }
+
+        publishRoomStays(roomNumber);
+    }
+
+    /**
+     * Expire the holds whose time-to-live is over, giving their nights back to the room type inventory.
+     */
+    private synchronized void expireHolds() {
+        for (RoomHold hold : holdWheel.advance(System.nanoTime())) {
+            holdIdToTimeout.remove(hold.id());
+            forgetHold(hold);
+            releaseNights(hold.room().getType(), hold.dates());
+        }
+    }
+
+    /**
+     * Start the hold expiry thread, the first time a hold is created.
+     */
+    private void startHoldExpiry() {
+        if (holdExpiryExecutor != null) {
+            return;
+        }
+
+        holdExpiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hotel-hold-expiry");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        holdExpiryExecutor.scheduleAtFixedRate(this::expireHolds, holdTickMillis, holdTickMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publish the stays of a room (its reservations and its held dates) in a new snapshot.
+     *
+     * @param roomNumber the room number.
+     */
+    private void publishRoomStays(String roomNumber) {
+        List<Reservation> reservations = roomNumberToReservations.getOrDefault(roomNumber, List.of());
+        List<Dates> heldDates = roomNumberToHolds.getOrDefault(roomNumber, List.of()).stream()
+                .map(RoomHold::dates)
+                .toList();
+
+        snapshot.updateAndGet(current -> current.withRoomStays(roomNumber, reservations, heldDates));
+    }
+
+    /**
+     * Fill in and commit a booking event, if it is recorded.
+     *
+     * @param event      the booking event.
+     * @param roomNumber the booked room number, or null for a room type allotment.
+     * @param type       the room type.
+     * @param dates      the check-in and check-out dates.
+     */
+    private void commitBookingEvent(BookingEvent event, String roomNumber, RoomType type, Dates dates) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.roomNumber = roomNumber;
+            event.roomType = type.name();
+            event.checkInDay = dates.checkIn().toEpochDay();
+            event.nights = (int) (dates.checkOut().toEpochDay() - dates.checkIn().toEpochDay());
+            event.roomReservations = roomNumber == null
+                    ? 0
+                    : roomNumberToReservations.getOrDefault(roomNumber, List.of()).size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Book one room of a type on every night of the stay in the room type inventory and the occupancy counters. Every
+     * reservation, hold and room type allotment books its nights once, when it is created (a confirmed hold or an
+     * assigned allotment keeps the nights it already booked).
+     *
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates.
+     */
+    private void bookNights(RoomType type, Dates dates) {
+        snapshot.updateAndGet(current -> current.withInventory(type,
+                current.getInventory(type).plus(dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay(), -1)));
+        occupancyCounters.add(type, dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay(), 1);
+    }
+
+    /**
+     * Give one room of a type back on every night of the stay in the room type inventory and the occupancy counters
+     * (e.g., a hold that expired or was released).
+     *
+     * @param type  the room type.
+     * @param dates the check-in and check-out dates.
+     */
+    private void releaseNights(RoomType type, Dates dates) {
+        snapshot.updateAndGet(current -> current.withInventory(type,
+                current.getInventory(type).plus(dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay(), 1)));
+        occupancyCounters.add(type, dates.checkIn().toEpochDay(), dates.checkOut().toEpochDay(), -1);
+    }
+
+    /**
+     * Add a reservation to the roomNumberToReservations map.
+     *
+     * @param reservation the reservation.
+     * @return the reservation.
+     */
+    private Reservation addReservation(Reservation reservation) {
+        String roomNumber = reservation.getRoom().getNumber();
+        List<Reservation> previousReservations = roomNumberToReservations.get(roomNumber);
 
         List<Reservation> reservations =
                 previousReservations == null ? new ArrayList<>() : new ArrayList<>(previousReservations);
 
-        reservations.add(new Reservation(customer, room, dates.checkIn(), dates.checkOut()));
+        reservations.add(reservation);
+
+        roomNumberToReservations.put(roomNumber, reservations);
+        publishRoomStays(roomNumber);
+        roomNumberToCheckInToReservation.computeIfAbsent(roomNumber, number -> new ConcurrentSkipListMap<>())
+                .put(reservation.getCheckIn(), reservation);
+        dailyGuestIndex.add(reservation);
+
+        return reservation;
+    }
 
-        roomNumberToReservations.put(room.getNumber(), reservations);
+    /**
+     * A generated test room and its reservations.
+     *
+     * @param room         the room.
+     * @param reservations the room reservations, in check-in order.
+     */
+    private record TestRoom(IRoom room, List<Reservation> reservations) {
     }
 }
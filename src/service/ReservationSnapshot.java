@@ -0,0 +1,163 @@
+package service;
+
+import model.Dates;
+import model.IRoom;
+import model.Reservation;
+import model.RoomType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable point-in-time view of the rooms, reservations and free-room counters, published by the
+ * {@link ReservationService} after every change.
+ * <p>
+ * Reports read a snapshot without locking while bookings keep publishing newer versions; unchanged rooms and
+ * reservation lists are shared between versions.
+ */
+final public class ReservationSnapshot {
+    static final ReservationSnapshot EMPTY =
+            new ReservationSnapshot(0, PersistentHashMap.empty(), PersistentHashMap.empty(),
+                    new RoomIndexes(PersistentHashMap.empty()), new EnumMap<>(RoomType.class));
+
+    private final long version;
+    private final PersistentHashMap<String, IRoom> roomNumberToRoom;
+    private final PersistentHashMap<String, RoomStays> roomNumberToStays;
+    private final RoomIndexes roomIndexes;
+    private final Map<RoomType, RoomTypeInventory> typeToInventory;
+
+    private ReservationSnapshot(long version, PersistentHashMap<String, IRoom> roomNumberToRoom,
+                                PersistentHashMap<String, RoomStays> roomNumberToStays, RoomIndexes roomIndexes,
+                                Map<RoomType, RoomTypeInventory> typeToInventory) {
+        this.version = version;
+        this.roomNumberToRoom = roomNumberToRoom;
+        this.roomNumberToStays = roomNumberToStays;
+        this.roomIndexes = roomIndexes;
+        this.typeToInventory = typeToInventory;
+    }
+
+    /**
+     * Get the snapshot version (increases with every published change).
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get all rooms, sorted by room number. The sorted list is computed once per version of the rooms.
+     *
+     * @return all rooms (unmodifiable).
+     */
+    public List<IRoom> getAllRooms() {
+        return roomIndexes.getRoomsByNumber();
+    }
+
+    /**
+     * Get the room access paths of this snapshot.
+     *
+     * @return the room indexes.
+     */
+    RoomIndexes getRoomIndexes() {
+        return roomIndexes;
+    }
+
+    /**
+     * Get the reservations of a room.
+     *
+     * @param roomNumber the room number.
+     * @return the room reservations.
+     */
+    public List<Reservation> getRoomReservations(String roomNumber) {
+        return getRoomStays(roomNumber).reservations();
+    }
+
+    /**
+     * Get the stays of a room.
+     *
+     * @param roomNumber the room number.
+     * @return the room stays.
+     */
+    RoomStays getRoomStays(String roomNumber) {
+        RoomStays roomStays = roomNumberToStays.get(roomNumber);
+
+        return roomStays == null ? RoomStays.EMPTY : roomStays;
+    }
+
+    /**
+     * Get the free-room counters of a room type.
+     *
+     * @param type the room type.
+     * @return the free-room counters.
+     */
+    RoomTypeInventory getInventory(RoomType type) {
+        return typeToInventory.getOrDefault(type, RoomTypeInventory.EMPTY);
+    }
+
+    /**
+     * Get all reservations, grouped by room.
+     *
+     * @return all reservations.
+     */
+    public List<Reservation> getAllReservations() {
+        List<Reservation> reservations = new ArrayList<>();
+        roomNumberToStays.forEach((roomNumber, roomStays) -> reservations.addAll(roomStays.reservations()));
+
+        return reservations;
+    }
+
+    /**
+     * Get a snapshot with a room added or replaced.
+     *
+     * @param room the room.
+     * @return the new snapshot.
+     */
+    ReservationSnapshot withRoom(IRoom room) {
+        PersistentHashMap<String, IRoom> newRoomNumberToRoom = roomNumberToRoom.plus(room.getNumber(), room);
+
+        return new ReservationSnapshot(version + 1, newRoomNumberToRoom, roomNumberToStays,
+                new RoomIndexes(newRoomNumberToRoom), typeToInventory);
+    }
+
+    /**
+     * Get a snapshot with the reservations and the held dates of a room replaced. Held dates count as occupied for the
+     * availability searches but are not reservations.
+     *
+     * @param roomNumber   the room number.
+     * @param reservations the room reservations.
+     * @param heldDates    the dates of the room holds.
+     * @return the new snapshot.
+     */
+    ReservationSnapshot withRoomStays(String roomNumber, List<Reservation> reservations, List<Dates> heldDates) {
+        PersistentHashMap<String, RoomStays> newRoomNumberToStays = reservations.isEmpty() && heldDates.isEmpty()
+                ? roomNumberToStays.minus(roomNumber)
+                : roomNumberToStays.plus(roomNumber, RoomStays.of(reservations, heldDates));
+
+        return new ReservationSnapshot(version + 1, roomNumberToRoom, newRoomNumberToStays, roomIndexes,
+                typeToInventory);
+    }
+
+    /**
+     * Get a snapshot with the free-room counters of a room type replaced (the other types are shared).
+     *
+     * @param type      the room type.
+     * @param inventory the free-room counters.
+     * @return the new snapshot.
+     */
+    ReservationSnapshot withInventory(RoomType type, RoomTypeInventory inventory) {
+        Map<RoomType, RoomTypeInventory> newTypeToInventory = new EnumMap<>(RoomType.class);
+        newTypeToInventory.putAll(typeToInventory);
+        newTypeToInventory.put(type, inventory);
+
+        return new ReservationSnapshot(version + 1, roomNumberToRoom, roomNumberToStays, roomIndexes,
+                newTypeToInventory);
+    }
+
+    @Override
+    public String toString() {
+        return roomNumberToStays.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package service;
+
+import model.IRoom;
+import model.RoomType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only access paths over one version of the rooms: by room number, partitioned by room type and by price.
+ * <p>
+ * The indexes are built on first use and shared by every {@link ReservationSnapshot} with the same rooms, so bookings
+ * (which only change reservations) never rebuild them.
+ */
+final class RoomIndexes {
+    private final PersistentHashMap<String, IRoom> roomNumberToRoom;
+    private List<IRoom> roomsByNumber;
+    private Map<RoomType, List<IRoom>> typeToRooms;
+    private List<IRoom> roomsByPrice;
+
+    RoomIndexes(PersistentHashMap<String, IRoom> roomNumberToRoom) {
+        this.roomNumberToRoom = roomNumberToRoom;
+    }
+
+    /**
+     * Get all rooms sorted by room number.
+     *
+     * @return the rooms (unmodifiable).
+     */
+    synchronized List<IRoom> getRoomsByNumber() {
+        build();
+
+        return roomsByNumber;
+    }
+
+    /**
+     * Get the rooms of a type, sorted by room number.
+     *
+     * @param type the room type.
+     * @return the rooms (unmodifiable).
+     */
+    synchronized List<IRoom> getRoomsOfType(RoomType type) {
+        build();
+
+        return typeToRooms.get(type);
+    }
+
+    /**
+     * Get all rooms sorted by price per night.
+     *
+     * @return the rooms (unmodifiable).
+     */
+    synchronized List<IRoom> getRoomsByPrice() {
+        build();
+
+        return roomsByPrice;
+    }
+
+    private void build() {
+        if (roomsByNumber != null) {
+            return;
+        }
+
+        List<IRoom> rooms = roomNumberToRoom.values();
+        rooms.sort(Comparator.comparing(IRoom::getNumber));
+        roomsByNumber = List.copyOf(rooms);
+
+        typeToRooms = new EnumMap<>(RoomType.class);
+
+        for (RoomType type : RoomType.values()) {
+            typeToRooms.put(type, roomsByNumber.stream().filter(room -> room.getType() == type).toList());
+        }
+
+        List<IRoom> priceSortedRooms = new ArrayList<>(roomsByNumber);
+        priceSortedRooms.sort(Comparator.comparingLong(IRoom::getPrice));
+        roomsByPrice = List.copyOf(priceSortedRooms);
+    }
+}
@@ -0,0 +1,50 @@
+package service;
+
+import model.Dates;
+import model.Reservation;
+
+import java.util.List;
+
+/**
+ * The reservations of one room, together with the check-in and check-out epoch days of its stays as primitive arrays so
+ * that the availability checks run over plain ints (see {@link AvailabilityKernel}). The stays are the reservations
+ * followed by the room holds.
+ *
+ * @param reservations the room reservations.
+ * @param checkIns     the check-in epoch day of each stay.
+ * @param checkOuts    the check-out epoch day of each stay.
+ */
+record RoomStays(List<Reservation> reservations, int[] checkIns, int[] checkOuts) {
+    static final RoomStays EMPTY = new RoomStays(List.of(), new int[0], new int[0]);
+
+    /**
+     * Create the stays of a room from its reservations and its held dates.
+     *
+     * @param reservations the room reservations.
+     * @param heldDates    the dates of the room holds.
+     * @return the room stays.
+     */
+    static RoomStays of(List<Reservation> reservations, List<Dates> heldDates) {
+        List<Reservation> reservationsCopy = List.copyOf(reservations);
+        int stayCount = reservationsCopy.size() + heldDates.size();
+        int[] checkIns = new int[stayCount];
+        int[] checkOuts = new int[stayCount];
+
+        for (int index = 0; index < reservationsCopy.size(); index++) {
+            checkIns[index] = Math.toIntExact(reservationsCopy.get(index).getCheckIn().toEpochDay());
+            checkOuts[index] = Math.toIntExact(reservationsCopy.get(index).getCheckOut().toEpochDay());
+        }
+
+        for (int index = 0; index < heldDates.size(); index++) {
+            checkIns[reservationsCopy.size() + index] = Math.toIntExact(heldDates.get(index).checkIn().toEpochDay());
+            checkOuts[reservationsCopy.size() + index] = Math.toIntExact(heldDates.get(index).checkOut().toEpochDay());
+        }
+
+        return new RoomStays(reservationsCopy, checkIns, checkOuts);
+    }
+
+    @Override
+    public String toString() {
+        return reservations.toString();
+    }
+}
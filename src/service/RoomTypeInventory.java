@@ -0,0 +1,200 @@
+package service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable free-room counters per night for one room type.
+ * <p>
+ * Backed by a persistent segment tree over epoch days with lazy range additions: booking a stay copies only the
+ * O(log n) nodes on the paths to its nights and shares the rest with the previous version, and asking for the minimum
+ * number of free rooms across all the nights of a stay runs in logarithmic time. Each version is published in a
+ * {@link ReservationSnapshot}, so a search reads the free-room counts of the same snapshot as the room stays. The tree
+ * grows (doubling its horizon) when a stay falls outside the nights it currently covers; nights it does not cover yet
+ * have every room free.
+ */
+final class RoomTypeInventory {
+    static final RoomTypeInventory EMPTY = new RoomTypeInventory(0, 0, 0, null);
+
+    private static final int MIN_NIGHTS = 64;
+
+    private final int capacity;
+    private final long firstDay;
+    private final int nights;
+    private final Node root;
+
+    private RoomTypeInventory(int capacity, long firstDay, int nights, Node root) {
+        this.capacity = capacity;
+        this.firstDay = firstDay;
+        this.nights = nights;
+        this.root = root;
+    }
+
+    /**
+     * Get the number of rooms of this type.
+     *
+     * @return the number of rooms.
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Add a room of this type (free on every night).
+     *
+     * @return the counters with the room added.
+     */
+    RoomTypeInventory withRoomAdded() {
+        return new RoomTypeInventory(capacity + 1, firstDay, nights, root == null ? null : root.plus(1));
+    }
+
+    /**
+     * Remove a room of this type (e.g., when a room number is replaced by a room of another type).
+     *
+     * @return the counters with the room removed.
+     */
+    RoomTypeInventory withRoomRemoved() {
+        return new RoomTypeInventory(capacity - 1, firstDay, nights, root == null ? null : root.plus(-1));
+    }
+
+    /**
+     * Add a delta to the free-room count of every night in [fromDay, toDay).
+     *
+     * @param fromDay the first night (epoch day).
+     * @param toDay   the check-out day (epoch day, exclusive).
+     * @param delta   -1 to book one room, +1 to release one.
+     * @return the updated counters.
+     */
+    RoomTypeInventory plus(long fromDay, long toDay, int delta) {
+        if (fromDay >= toDay) {
+            return this;
+        }
+
+        RoomTypeInventory covering = cover(fromDay, toDay);
+
+        return new RoomTypeInventory(capacity, covering.firstDay, covering.nights, addRange(covering.root, 0,
+                covering.nights, (int) (fromDay - covering.firstDay), (int) (toDay - covering.firstDay), delta));
+    }
+
+    /**
+     * Get the minimum free-room count over the nights in [fromDay, toDay).
+     *
+     * @param fromDay the first night (epoch day).
+     * @param toDay   the check-out day (epoch day, exclusive).
+     * @return the number of rooms of this type that are free on every night of the stay.
+     */
+    int getMinFree(long fromDay, long toDay) {
+        long from = Math.max(fromDay, firstDay);
+        long to = Math.min(toDay, firstDay + nights);
+
+        // Nights the tree does not cover yet have never been booked, so they cannot lower the minimum.
+        if (nights == 0 || from >= to) {
+            return capacity;
+        }
+
+        return getRangeMin(root, 0, nights, (int) (from - firstDay), (int) (to - firstDay));
+    }
+
+    /**
+     * Make sure the tree covers the nights in [fromDay, toDay), growing it if needed.
+     *
+     * @param fromDay the first night (epoch day).
+     * @param toDay   the check-out day (epoch day, exclusive).
+     * @return these counters, or a copy over a wider horizon.
+     */
+    private RoomTypeInventory cover(long fromDay, long toDay) {
+        if (nights > 0 && fromDay >= firstDay && toDay <= firstDay + nights) {
+            return this;
+        }
+
+        long newFirstDay = nights == 0 ? fromDay : Math.min(firstDay, fromDay);
+        long newLastDay = nights == 0 ? toDay : Math.max(firstDay + nights, toDay);
+
+        int newNights = Math.max(MIN_NIGHTS, nights * 2);
+        while (newNights < newLastDay - newFirstDay) {
+            newNights *= 2;
+        }
+
+        int[] values = new int[newNights];
+        Arrays.fill(values, capacity);
+
+        for (int night = 0; night < nights; night++) {
+            values[(int) (firstDay - newFirstDay) + night] = getRangeMin(root, 0, nights, night, night + 1);
+        }
+
+        return new RoomTypeInventory(capacity, newFirstDay, newNights, build(0, newNights, values));
+    }
+
+    /**
+     * Build the subtree covering [low, high) from the per-night free-room counts.
+     */
+    private static Node build(int low, int high, int[] values) {
+        if (high - low == 1) {
+            return new Node(values[low], 0, null, null);
+        }
+
+        int middle = (low + high) >>> 1;
+        Node left = build(low, middle, values);
+        Node right = build(middle, high, values);
+
+        return new Node(Math.min(left.min(), right.min()), 0, left, right);
+    }
+
+    /**
+     * Add a delta to the nights in [from, to) below a node covering [low, high), copying the nodes it changes.
+     */
+    private static Node addRange(Node node, int low, int high, int from, int to, int delta) {
+        if (to <= low || high <= from) {
+            return node;
+        }
+
+        if (from <= low && high <= to) {
+            return node.plus(delta);
+        }
+
+        int middle = (low + high) >>> 1;
+        Node left = addRange(node.left(), low, middle, from, to, delta);
+        Node right = addRange(node.right(), middle, high, from, to, delta);
+
+        return new Node(Math.min(left.min(), right.min()) + node.lazy(), node.lazy(), left, right);
+    }
+
+    /**
+     * Get the minimum free-room count of the nights in [from, to) below a node covering [low, high).
+     */
+    private static int getRangeMin(Node node, int low, int high, int from, int to) {
+        if (to <= low || high <= from) {
+            return Integer.MAX_VALUE;
+        }
+
+        if (from <= low && high <= to) {
+            return node.min();
+        }
+
+        int middle = (low + high) >>> 1;
+        int childMin = Math.min(getRangeMin(node.left(), low, middle, from, to),
+                getRangeMin(node.right(), middle, high, from, to));
+
+        return childMin == Integer.MAX_VALUE ? childMin : childMin + node.lazy();
+    }
+
+    /**
+     * A segment tree node: the minimum free-room count of its nights and the delta added to all of them (not pushed
+     * down to the children).
+     *
+     * @param min   the minimum free-room count of the nights below the node.
+     * @param lazy  the delta added to every night below the node.
+     * @param left  the left child, or null for a leaf.
+     * @param right the right child, or null for a leaf.
+     */
+    private record Node(int min, int lazy, Node left, Node right) {
+        /**
+         * Add a delta to every night below the node.
+         *
+         * @param delta the delta.
+         * @return the updated node (sharing the children).
+         */
+        Node plus(int delta) {
+            return new Node(min + delta, lazy + delta, left, right);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: schedules timeouts in O(1) and expires them in O(1) each.
+ * <p>
+ * The wheel has a power-of-two number of slots, each covering one tick. A timeout goes to the slot of its deadline
+ * tick, with the number of full turns of the wheel left before it is due. Advancing the wheel by one tick visits one
+ * slot: the timeouts with no turns left expire, the others count one turn down. Cancelling unlinks the timeout from
+ * its slot (a doubly linked list). The wheel is not thread-safe.
+ *
+ * @param <T> the type of the items that time out.
+ */
+final class TimingWheel<T> {
+    /**
+     * A scheduled timeout.
+     *
+     * @param <T> the type of the item that times out.
+     */
+    static final class Timeout<T> {
+        private final T item;
+        private final int slot;
+        private long remainingTurns;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+        private boolean isScheduled;
+
+        private Timeout(T item, int slot, long remainingTurns) {
+            this.item = item;
+            this.slot = slot;
+            this.remainingTurns = remainingTurns;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout<T>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates a timing wheel.
+     *
+     * @param tickNanos the tick duration, in nanoseconds.
+     * @param slotCount the number of slots (rounded up to a power of two).
+     * @param nowNanos  the current {@link System#nanoTime()}.
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickNanos, int slotCount, long nowNanos) {
+        int powerOfTwoSlotCount = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+
+        this.tickNanos = tickNanos;
+        this.startNanos = nowNanos;
+        this.slots = (Timeout<T>[]) new Timeout<?>[powerOfTwoSlotCount];
+        this.mask = powerOfTwoSlotCount - 1;
+    }
+
+    /**
+     * Get the number of scheduled timeouts.
+     *
+     * @return the number of timeouts.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedule an item to time out after a delay (rounded up to the next tick).
+     *
+     * @param item       the item.
+     * @param delayNanos the delay, in nanoseconds.
+     * @param nowNanos   the current {@link System#nanoTime()}.
+     * @return the timeout, to cancel it.
+     */
+    Timeout<T> schedule(T item, long delayNanos, long nowNanos) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(nowNanos - startNanos + delayNanos, tickNanos));
+        int slot = (int) (deadlineTick & mask);
+        Timeout<T> timeout = new Timeout<>(item, slot, (deadlineTick - currentTick - 1) / slots.length);
+
+        timeout.next = slots[slot];
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+
+        slots[slot] = timeout;
+        timeout.isScheduled = true;
+        size++;
+
+        return timeout;
+    }
+
+    /**
+     * Cancel a timeout (nothing happens if it already expired or was cancelled).
+     *
+     * @param timeout the timeout.
+     */
+    void cancel(Timeout<T> timeout) {
+        if (!timeout.isScheduled) {
+            return;
+        }
+
+        if (timeout.previous == null) {
+            slots[timeout.slot] = timeout.next;
+        } else {
+            timeout.previous.next = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.isScheduled = false;
+        size--;
+    }
+
+    /**
+     * Advance the wheel to the current time.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}.
+     * @return the items that timed out, oldest deadline first.
+     */
+    List<T> advance(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        List<T> expiredItems = new ArrayList<>();
+
+        // An empty wheel has nothing to visit: jump straight to the target tick.
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return expiredItems;
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            Timeout<T> timeout = slots[(int) (currentTick & mask)];
+
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+
+                if (timeout.remainingTurns == 0) {
+                    cancel(timeout);
+                    expiredItems.add(timeout.item);
+                } else {
+                    timeout.remainingTurns--;
+                }
+
+                timeout = next;
+            }
+        }
+
+        return expiredItems;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
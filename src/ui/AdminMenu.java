@@ -2,11 +2,18 @@ package ui;
 
 import api.AdminResource;
 import model.Customer;
+import model.DailyGuestReport;
+import model.DailyOccupancy;
 import model.IRoom;
+import model.Money;
+import model.Reservation;
 import model.Room;
 import model.RoomType;
+import utils.DatesInput;
 import utils.StringInput;
 
+import java.io.PrintStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
@@ -18,12 +25,43 @@ import static java.lang.Integer.parseInt;
  */
 final public class AdminMenu {
     final AdminResource adminResource = AdminResource.getInstance();
+    final PrintStream output;
 
     /**
-     * Initialize the admin menu UI.
+     * Creates an admin menu on the console.
+     */
+    public AdminMenu() {
+        this(System.out);
+    }
+
+    /**
+     * Creates an admin menu on a terminal (e.g., a terminal server session).
+     *
+     * @param output the terminal output.
+     */
+    public AdminMenu(PrintStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Initialize the admin menu UI, showing it again after each option until the user goes back to the main menu.
+     *
+     * @param scanner the text scanner input.
      */
     public void getAdminMenu(Scanner scanner) {
-        System.out.println("""
+        boolean isRunning;
+
+        do {
+            printAdminMenu();
+            isRunning = handleMenuOptionSelections(scanner);
+        } while (isRunning);
+    }
+
+    /**
+     * Print the admin menu options.
+     */
+    private void printAdminMenu() {
+        output.println("""
                 
                 Admin Menu
                 _______________________________________________
@@ -32,36 +70,37 @@ final public class AdminMenu {
                 3. See all Reservations
                 4. Add a Room
                 5. Add Test Data
-                6. Back to Main Menu
+                6. See the Daily Guest Report
+                7. See the Occupancy Dashboard
+                8. Back to Main Menu
                 _______________________________________________
                 """);
-
-        handleMenuOptionSelections(scanner);
     }
 
     /**
      * Handle the menu option selections.
      *
      * @param scanner the text scanner input.
+     * @return false if the user went back to the main menu, true to show the admin menu again.
      * @throws NoSuchElementException   if no line is found on the scanner.
      * @throws IllegalStateException    if the scanner is closed.
      * @throws NumberFormatException    if the selected option does not contain a parsable integer.
-     * @throws IllegalArgumentException if the selected option is not an integer between 1 and 6.
+     * @throws IllegalArgumentException if the selected option is not an integer between 1 and 8.
      */
-    private void handleMenuOptionSelections(Scanner scanner)
+    private boolean handleMenuOptionSelections(Scanner scanner)
             throws NoSuchElementException, IllegalStateException, NumberFormatException, IllegalArgumentException {
-        String errorMessage = "Only numbers between 1 and 6 are allowed.";
+        String errorMessage = "Only numbers between 1 and 8 are allowed.";
 
         boolean isInputValid;
 
         do {
             try {
-                System.out.println("Please select a number for the menu option:");
+                output.println("Please select a number for the menu option:");
 
                 String input = scanner.nextLine();
                 int intInput = parseInt(input);
 
-                if (intInput < 1 || intInput > 6) {
+                if (intInput < 1 || intInput > 8) {
                     throw new IllegalArgumentException(errorMessage);
                 }
 
@@ -73,21 +112,24 @@ final public class AdminMenu {
                     case 3 -> seeAllReservations();
                     case 4 -> addARoom(scanner);
                     case 5 -> addTestData();
-                    case 6 -> {
-                        MainMenu mainMenu = new MainMenu();
-                        mainMenu.getMainMenu();
+                    case 6 -> seeDailyGuestReport(scanner);
+                    case 7 -> seeOccupancyDashboard();
+                    case 8 -> {
+                        return false;
                     }
                 }
-
-                getAdminMenu(scanner);
             } catch (NumberFormatException e) {
-                System.out.println(errorMessage);
+                output.println(errorMessage);
                 isInputValid = false;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
                 isInputValid = false;
             }
         } while (!isInputValid);
+
+        return true;
     }
 
     /**
@@ -97,7 +139,7 @@ final public class AdminMenu {
         List<Customer> customers = adminResource.getAllCustomers();
 
         for (Customer customer : customers) {
-            System.out.println(customer);
+            output.println(customer);
         }
     }
 
@@ -108,7 +150,7 @@ final public class AdminMenu {
         List<IRoom> rooms = adminResource.getAllRooms();
 
         for (IRoom room : rooms) {
-            System.out.println(room);
+            output.println(room);
         }
     }
 
@@ -129,25 +171,70 @@ final public class AdminMenu {
 
         do {
             String number = getRoomNumberInput(scanner);
-            double price = getRoomPriceInput(scanner);
+            long price = getRoomPriceInput(scanner);
             RoomType type = getRoomTypeInput(scanner);
 
             Room room = new Room(number, price, type);
 
             adminResource.addRoom(room);
 
-            isAddingRoom = StringInput.getYesOrNo("Would you like to add a another room?", scanner);
+            isAddingRoom = StringInput.getYesOrNo("Would you like to add a another room?", scanner, output);
         } while (isAddingRoom);
     }
 
     /**
-     * Admin Menu Option 5: Add test data (rooms and customers) for testing.
+     * Admin Menu Option 5: Add test data (rooms, customers and reservations) for testing, sized by the
+     * {@code hotel.testdata.*} system properties.
      */
     private void addTestData() {
-        System.out.println("Adding Rooms and Customer data for testing. Existing data will be overwritten.");
+        output.println("Adding Rooms, Customers and Reservations for testing. Existing rooms will be overwritten.");
         adminResource.addTestData();
     }
 
+    /**
+     * Admin Menu Option 6: See who arrives, departs and stays in house on a day.
+     *
+     * @param scanner the text scanner input.
+     */
+    private void seeDailyGuestReport(Scanner scanner) {
+        LocalDate date = DatesInput.getDate(scanner, output);
+        DailyGuestReport report = adminResource.getDailyGuestReport(date);
+
+        output.println(report);
+        printReservations("Arrivals", report.arrivals());
+        printReservations("Departures", report.departures());
+        printReservations("In house", report.inHouse());
+    }
+
+    /**
+     * Admin Menu Option 7: See the occupancy per room type of tonight and the next 30 nights.
+     */
+    private void seeOccupancyDashboard() {
+        List<DailyOccupancy> occupancy = adminResource.getOccupancyDashboard();
+
+        for (DailyOccupancy dailyOccupancy : occupancy) {
+            output.println(dailyOccupancy);
+        }
+    }
+
+    /**
+     * Print a titled list of reservations.
+     *
+     * @param title        the list title.
+     * @param reservations the reservations.
+     */
+    private void printReservations(String title, List<Reservation> reservations) {
+        output.println(title + ":");
+
+        if (reservations.isEmpty()) {
+            output.println("None.");
+        }
+
+        for (Reservation reservation : reservations) {
+            output.println(reservation);
+        }
+    }
+
     /**
      * Get the room number input.
      *
@@ -161,7 +248,7 @@ final public class AdminMenu {
             throws NoSuchElementException, IllegalStateException, IllegalArgumentException {
         do {
             try {
-                System.out.println("Enter room number:");
+                output.println("Enter room number:");
                 String input = scanner.nextLine();
 
                 List<IRoom> rooms = adminResource.getAllRooms();
@@ -171,8 +258,10 @@ final public class AdminMenu {
                 }
 
                 return input;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -181,33 +270,30 @@ final public class AdminMenu {
      * Get the room price per night input.
      *
      * @param scanner the text scanner input.
-     * @return the room price per night.
+     * @return the room price per night, in minor units (see {@link Money}).
      * @throws NoSuchElementException   if no line is found on the scanner.
      * @throws IllegalStateException    if the scanner is closed.
-     * @throws NullPointerException     if the price input is null.
-     * @throws NumberFormatException    if the price input is not a parsable double.
-     * @throws IllegalArgumentException if the price input is not a positive double.
+     * @throws IllegalArgumentException if the price input is not a positive amount with at most two decimals.
      */
-    private double getRoomPriceInput(Scanner scanner)
-            throws NoSuchElementException, IllegalStateException, NullPointerException, NumberFormatException,
-            IllegalArgumentException {
+    private long getRoomPriceInput(Scanner scanner)
+            throws NoSuchElementException, IllegalStateException, IllegalArgumentException {
         String message = "Enter price per night:";
-        System.out.println(message);
+        output.println(message);
 
         do {
             try {
                 String input = scanner.nextLine();
-                double doubleInput = Double.parseDouble(input);
+                long price = Money.parse(input.trim());
 
-                if (doubleInput < 0) {
+                if (price < 0) {
                     throw new IllegalArgumentException("The price must be a positive number.");
                 }
 
-                return doubleInput;
-            } catch (NullPointerException | NumberFormatException e) {
-                System.out.println("Enter a valid number (e.g., 199.99).");
+                return price;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -224,7 +310,7 @@ final public class AdminMenu {
      */
     private RoomType getRoomTypeInput(Scanner scanner)
             throws NoSuchElementException, IllegalStateException, NumberFormatException, IllegalArgumentException {
-        System.out.println("Enter room type (1 for single bed, 2 for double bed):");
+        output.println("Enter room type (1 for single bed, 2 for double bed):");
 
         do {
             try {
@@ -236,8 +322,10 @@ final public class AdminMenu {
                 }
 
                 return intInput == 1 ? RoomType.SINGLE : RoomType.DOUBLE;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
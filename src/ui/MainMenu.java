@@ -1,12 +1,15 @@
 package ui;
 
 import api.HotelResource;
-import model.Customer;
+import api.OverloadedException;
 import model.Dates;
 import model.IRoom;
 import model.Reservation;
+import model.RoomHold;
 import utils.DatesInput;
 
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -22,12 +25,44 @@ import static utils.StringInput.getYesOrNo;
  */
 final public class MainMenu {
     final HotelResource hotelResource = HotelResource.getInstance();
+    final Scanner scanner;
+    final PrintStream output;
 
     /**
-     * Initialize the main menu UI.
+     * Creates a main menu on the console.
+     */
+    public MainMenu() {
+        this(System.in, System.out);
+    }
+
+    /**
+     * Creates a main menu on a terminal (e.g., a terminal server session).
+     *
+     * @param input  the terminal input.
+     * @param output the terminal output.
+     */
+    public MainMenu(InputStream input, PrintStream output) {
+        scanner = new Scanner(input);
+        this.output = output;
+    }
+
+    /**
+     * Initialize the main menu UI, showing it again after each option until the user exits.
      */
     public void getMainMenu() {
-        System.out.println("""
+        boolean isRunning;
+
+        do {
+            printMainMenu();
+            isRunning = handleMenuOptionSelections();
+        } while (isRunning);
+    }
+
+    /**
+     * Print the main menu options.
+     */
+    private void printMainMenu() {
+        output.println("""
                 Welcome to the Hotel Reservation Application
                 
                 _______________________________________________
@@ -38,28 +73,26 @@ final public class MainMenu {
                 5. Exit
                 _______________________________________________
                 """);
-
-        handleMenuOptionSelections();
     }
 
     /**
      * Handle the menu option selections.
      *
+     * @return false if the user exited, true to show the main menu again.
      * @throws NoSuchElementException   if no line is found on the scanner.
      * @throws IllegalStateException    if the scanner is closed.
      * @throws NumberFormatException    if the selected option does not contain a parsable integer.
      * @throws IllegalArgumentException if the selected option is not an integer between 1 and 6.
      */
-    private void handleMenuOptionSelections()
+    private boolean handleMenuOptionSelections()
             throws NoSuchElementException, IllegalStateException, NumberFormatException, IllegalArgumentException {
         String errorMessage = "Only numbers between 1 and 5 are allowed.";
-        Scanner scanner = new Scanner(System.in);
 
         boolean isInputValid;
 
         do {
             try {
-                System.out.println("Please select a number for the menu option:");
+                output.println("Please select a number for the menu option:");
 
                 String input = scanner.nextLine();
                 int intInput = parseInt(input);
@@ -75,18 +108,23 @@ final public class MainMenu {
                     case 2 -> seeMyReservations(scanner);
                     case 3 -> createAnAccount(scanner);
                     case 4 -> getAdminMenu(scanner);
-                    case 5 -> scanner.close();
+                    case 5 -> {
+                        scanner.close();
+                        return false;
+                    }
                 }
-
-                getMainMenu();
             } catch (NumberFormatException e) {
-                System.out.println(errorMessage);
+                output.println(errorMessage);
                 isInputValid = false;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
                 isInputValid = false;
             }
         } while (!isInputValid);
+
+        return true;
     }
 
     /**
@@ -95,7 +133,7 @@ final public class MainMenu {
      * @param scanner the text scanner input.
      */
     private void findAndReserveARoom(Scanner scanner) {
-        Dates dates = DatesInput.getDates(scanner);
+        Dates dates = DatesInput.getDates(scanner, output);
 
         String roomSearchType = getRoomSearchType(scanner);
 
@@ -107,27 +145,45 @@ final public class MainMenu {
         }
 
         if (availableRooms.isEmpty()) {
-            System.out.println("No rooms available for the selected dates and search type.");
+            output.println("No rooms available for the selected dates and search type.");
             return;
         }
 
         for (IRoom room : availableRooms) {
-            System.out.println(room);
+            output.println(room);
         }
 
-        boolean isBooking = getYesOrNo("Would you like to book a room?", scanner);
+        boolean isBooking = getYesOrNo("Would you like to book a room?", scanner, output);
 
         if (isBooking) {
-            boolean hasAccountAccordingToUser = getYesOrNo("Do you have an account with us?", scanner);
+            // Hold the room first, so nobody else books it while the guest signs in or creates an account.
+            RoomHold hold = holdRoom(scanner, availableRooms, dates, roomSearchType);
 
-            String email;
-            if (hasAccountAccordingToUser) {
-                email = getExistingEmailInput(scanner);
-            } else {
-                email = createAnAccount(scanner);
+            if (hold == null) {
+                return;
             }
 
-            reserveRoom(email, scanner, availableRooms, dates);
+            output.println(hold);
+
+            boolean isReserved = false;
+
+            try {
+                boolean hasAccountAccordingToUser = getYesOrNo("Do you have an account with us?", scanner, output);
+
+                String email;
+                if (hasAccountAccordingToUser) {
+                    email = getExistingEmailInput(scanner);
+                } else {
+                    email = createAnAccount(scanner);
+                }
+
+                isReserved = reserveRoom(email, scanner, hold);
+            } finally {
+                // A booking that did not go through (e.g., overloaded system or disconnected terminal) frees the room.
+                if (!isReserved) {
+                    hotelResource.releaseHold(hold);
+                }
+            }
         }
     }
 
@@ -142,7 +198,7 @@ final public class MainMenu {
         List<Reservation> reservations = hotelResource.getCustomersReservations(email);
 
         for (Reservation reservation : reservations) {
-            System.out.println(reservation);
+            output.println(reservation);
         }
     }
 
@@ -156,14 +212,16 @@ final public class MainMenu {
         do {
             try {
                 String email = getNewEmailInput(scanner);
-                String firstName = getNoCustomValidationStringInput("Enter first name:", scanner);
-                String lastName = getNoCustomValidationStringInput("Enter last name:", scanner);
+                String firstName = getNoCustomValidationStringInput("Enter first name:", scanner, output);
+                String lastName = getNoCustomValidationStringInput("Enter last name:", scanner, output);
 
                 hotelResource.createCustomer(email, firstName, lastName);
 
                 return email;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -174,7 +232,7 @@ final public class MainMenu {
      * @param scanner the text scanner input.
      */
     private void getAdminMenu(Scanner scanner) {
-        AdminMenu adminMenu = new AdminMenu();
+        AdminMenu adminMenu = new AdminMenu(output);
         adminMenu.getAdminMenu(scanner);
     }
 
@@ -189,7 +247,7 @@ final public class MainMenu {
      */
     private String getRoomSearchType(Scanner scanner)
             throws NoSuchElementException, IllegalStateException, IllegalArgumentException {
-        System.out.println("Would you like to search for all rooms (a), only paid rooms (p) or only free rooms (f)?");
+        output.println("Would you like to search for all rooms (a), only paid rooms (p) or only free rooms (f)?");
 
         do {
             try {
@@ -201,8 +259,10 @@ final public class MainMenu {
                 }
 
                 return input.toUpperCase();
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -220,8 +280,8 @@ final public class MainMenu {
      */
     private Dates getAlternativeDates(Dates dates, Scanner scanner)
             throws NoSuchElementException, IllegalStateException, NumberFormatException, IllegalArgumentException {
-        System.out.println("No rooms available for the selected dates.");
-        System.out.println(
+        output.println("No rooms available for the selected dates.");
+        output.println(
                 "Enter how many days out the room recommendation should search: (e.g., 7 to search 7 days later or -7 to search 7 days earlier)");
 
         do {
@@ -237,8 +297,10 @@ final public class MainMenu {
                 LocalDate alternativeCheckOut = dates.checkOut().plusDays(intInput);
 
                 return new Dates(alternativeCheckIn, alternativeCheckOut);
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -256,9 +318,11 @@ final public class MainMenu {
             throws NoSuchElementException, IllegalStateException, IllegalArgumentException {
         do {
             try {
-                return getEmailInput(scanner);
+                return getEmailInput(scanner, output);
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -276,69 +340,114 @@ final public class MainMenu {
             throws NoSuchElementException, IllegalStateException, IllegalArgumentException {
         do {
             try {
-                String emailInput = getEmailInput(scanner);
-
-                List<Customer> customers = hotelResource.getAllCustomers();
+                String emailInput = getEmailInput(scanner, output);
 
-                if (customers.stream().anyMatch(customer -> emailInput.equals(customer.getEmail()))) {
+                if (hotelResource.customerExists(emailInput)) {
                     throw new IllegalArgumentException("That customer e-mail is already in use.");
                 }
 
                 return emailInput;
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
 
     /**
-     * Reserve a room from the available rooms.
+     * Hold a room from the available rooms. If the room was booked or held since the search, the rooms are searched
+     * again; an empty room number goes back to the main menu.
      *
-     * @param email          the customer e-mail.
      * @param scanner        the text scanner input.
      * @param availableRooms the available rooms for the desired dates.
      * @param dates          the desired check-in and check-out dates.
-     * @throws NoSuchElementException   if no line is found on the scanner.
-     * @throws IllegalStateException    if the scanner is closed.
-     * @throws IllegalArgumentException if the input is not a free room.
+     * @param roomSearchType the room search type - A (all rooms), P (only paid room) or F (only free rooms).
+     * @return the room hold, or null if the user went back or no room is available anymore.
+     * @throws NoSuchElementException if no line is found on the scanner.
+     * @throws IllegalStateException  if the scanner is closed.
      */
-    private void reserveRoom(String email, Scanner scanner, List<IRoom> availableRooms, Dates dates) {
-        boolean hasAccountAccordingToSystem = checkHasAccountAccordingToSystem(email);
+    private RoomHold holdRoom(Scanner scanner, List<IRoom> availableRooms, Dates dates, String roomSearchType)
+            throws NoSuchElementException, IllegalStateException {
+        List<IRoom> rooms = availableRooms;
 
-        if (hasAccountAccordingToSystem) {
-            boolean isValidRoom = false;
+        do {
+            try {
+                output.println("What room number would you like to reserve? (leave empty to go back)");
+                String input = scanner.nextLine();
+
+                if (input.isBlank()) {
+                    return null;
+                }
+
+                boolean isValidRoom = rooms.stream().anyMatch(room -> room.getNumber().equals(input));
+
+                if (!isValidRoom) {
+                    throw new IllegalArgumentException("Only the room numbers displayed above are allowed.");
+                }
 
-            do {
                 try {
-                    System.out.println("What room number would you like to reserve?");
-                    String input = scanner.nextLine();
+                    return hotelResource.holdRoom(hotelResource.getRoom(input), dates);
+                } catch (IllegalArgumentException e) {
+                    output.println(e.getLocalizedMessage() + " Here are the rooms still available:");
+                }
 
-                    isValidRoom = availableRooms.stream().anyMatch(room -> room.getNumber().equals(input));
+                rooms = hotelResource.findAvailableRooms(dates, roomSearchType);
 
-                    if (!isValidRoom) {
-                        throw new IllegalArgumentException("Only the room numbers displayed above are allowed.");
-                    }
+                if (rooms.isEmpty()) {
+                    output.println("No rooms available for the selected dates and search type.");
+                    return null;
+                }
+
+                for (IRoom room : rooms) {
+                    output.println(room);
+                }
+            } catch (NoSuchElementException e) {
+                throw e;
+            } catch (Exception e) {
+                output.println(e.getLocalizedMessage());
+            }
+        } while (true);
+    }
 
-                    IRoom room = hotelResource.getRoom(input);
+    /**
+     * Reserve a held room.
+     *
+     * @param email   the customer e-mail.
+     * @param scanner the text scanner input.
+     * @param hold    the room hold.
+     * @return true if the room was reserved.
+     * @throws NoSuchElementException if no line is found on the scanner.
+     * @throws IllegalStateException  if the scanner is closed.
+     * @throws OverloadedException    if the system is overloaded (the hold was not confirmed).
+     */
+    private boolean reserveRoom(String email, Scanner scanner, RoomHold hold)
+            throws NoSuchElementException, IllegalStateException, OverloadedException {
+        boolean hasAccountAccordingToSystem = checkHasAccountAccordingToSystem(email);
 
-                    hotelResource.reserveRoom(email, room, dates);
+        if (hasAccountAccordingToSystem) {
+            try {
+                hotelResource.confirmHold(hold, email);
 
-                    List<Reservation> reservations = hotelResource.getCustomersReservations(email);
+                List<Reservation> reservations = hotelResource.getCustomersReservations(email);
 
-                    for (Reservation reservation : reservations) {
-                        System.out.println(reservation);
-                    }
-                } catch (Exception e) {
-                    System.out.println(e.getLocalizedMessage());
+                for (Reservation reservation : reservations) {
+                    output.println(reservation);
                 }
-            } while (!isValidRoom);
+
+                return true;
+            } catch (IllegalArgumentException e) {
+                output.println(e.getLocalizedMessage() + " Please search for the room again.");
+
+                return false;
+            }
         } else {
-            System.out.println(
+            output.println(
                     "Account not found. Please create an account with us to conclude booking.");
 
             String newAccountEmail = createAnAccount(scanner);
 
-            reserveRoom(newAccountEmail, scanner, availableRooms, dates);
+            return reserveRoom(newAccountEmail, scanner, hold);
         }
     }
 
@@ -349,8 +458,6 @@ final public class MainMenu {
      * @return true if the user has an account in the system.
      */
     private boolean checkHasAccountAccordingToSystem(String email) {
-        Customer customer = hotelResource.getCustomer(email);
-
-        return customer != null;
+        return hotelResource.customerExists(email);
     }
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+package ui;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Routes {@link System#out} to the output of the terminal session running on the current thread. The menus write to
+ * their own session output; this only catches the code that really prints to {@link System#out} (e.g., the
+ * reservation listing and the test data summary), so it reaches the terminal that asked for it. Threads without a
+ * session keep using the console.
+ * <p>
+ * The routing stream takes no lock of its own: every call goes straight to the session output, so a stalled
+ * terminal only blocks its own session.
+ */
+final class SessionStreams {
+    private static final ThreadLocal<PrintStream> CURRENT_OUTPUT = new ThreadLocal<>();
+
+    private static boolean isInstalled;
+
+    private SessionStreams() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Replace {@link System#out} by the routing stream (once).
+     */
+    static synchronized void install() {
+        if (isInstalled) {
+            return;
+        }
+
+        System.setOut(new RoutingPrintStream(System.out));
+        isInstalled = true;
+    }
+
+    /**
+     * Bind the current thread to the output of a terminal session.
+     *
+     * @param output the session output.
+     */
+    static void bind(PrintStream output) {
+        CURRENT_OUTPUT.set(output);
+    }
+
+    /**
+     * Unbind the current thread from its terminal session.
+     */
+    static void unbind() {
+        CURRENT_OUTPUT.remove();
+    }
+
+    /**
+     * Prints to the session output of the current thread, or to the console. Every public method is delegated, since
+     * the inherited ones would lock this shared stream around the write.
+     */
+    private static final class RoutingPrintStream extends PrintStream {
+        private final PrintStream consoleOutput;
+
+        RoutingPrintStream(PrintStream consoleOutput) {
+            super(consoleOutput);
+            this.consoleOutput = consoleOutput;
+        }
+
+        private PrintStream getOutput() {
+            PrintStream output = CURRENT_OUTPUT.get();
+
+            return output == null ? consoleOutput : output;
+        }
+
+        @Override
+        public void write(int b) {
+            getOutput().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            getOutput().write(bytes, offset, length);
+        }
+
+        @Override
+        public void write(byte[] bytes) {
+            getOutput().write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void writeBytes(byte[] bytes) {
+            getOutput().writeBytes(bytes);
+        }
+
+        @Override
+        public void flush() {
+            getOutput().flush();
+        }
+
+        @Override
+        public void close() {
+            getOutput().close();
+        }
+
+        @Override
+        public boolean checkError() {
+            return getOutput().checkError();
+        }
+
+        @Override
+        public void print(boolean b) {
+            getOutput().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            getOutput().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            getOutput().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            getOutput().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            getOutput().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            getOutput().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            getOutput().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            getOutput().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            getOutput().print(obj);
+        }
+
+        @Override
+        public void println() {
+            getOutput().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            getOutput().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            getOutput().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            getOutput().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            getOutput().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            getOutput().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            getOutput().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            getOutput().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            getOutput().append(c);
+            return this;
+        }
+    }
+}
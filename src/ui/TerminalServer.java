@@ -0,0 +1,134 @@
+package ui;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Terminal server: every socket connection (e.g., {@code telnet host port}) gets its own {@link MainMenu} session, with
+ * its own input and output streams over the socket, and all the sessions share the same in-memory services.
+ * <p>
+ * The menus block on their input, so each session runs on its own thread, with a small stack
+ * ({@code hotel.terminal.stack-kb}, 512 by default) so that hundreds of terminals stay cheap; the menus loop instead of
+ * recursing, so a long session does not grow its stack. A session that still runs out of stack is closed with a
+ * message instead of killing its thread with an uncaught error. At most
+ * {@code hotel.terminal.max-sessions} sessions (512 by default) run at once; further connections are told to retry
+ * later. A session ends when the user exits or the terminal disconnects.
+ */
+final public class TerminalServer {
+    private final int port;
+    private final long stackSize;
+    private final Semaphore sessionPermits;
+    private final AtomicInteger sessionCount;
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * Creates a terminal server for a port, configured by the {@code hotel.terminal.*} system properties.
+     *
+     * @param port the port to listen to (0 for any free port).
+     */
+    public TerminalServer(int port) {
+        this.port = port;
+        stackSize = Integer.getInteger("hotel.terminal.stack-kb", 512) * 1024L;
+        sessionPermits = new Semaphore(Integer.getInteger("hotel.terminal.max-sessions", 512));
+        sessionCount = new AtomicInteger();
+    }
+
+    /**
+     * Start accepting terminal connections.
+     *
+     * @return the port listened to.
+     * @throws UncheckedIOException if the port cannot be listened to.
+     */
+    public int start() throws UncheckedIOException {
+        try {
+            serverSocket = new ServerSocket(port);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not listen to the terminal port " + port + ".", e);
+        }
+
+        SessionStreams.install();
+        new Thread(this::acceptSessions, "hotel-terminal-acceptor").start();
+
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stop accepting terminal connections (the running sessions go on).
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed.
+        }
+    }
+
+    /**
+     * Accept terminal connections until the server is stopped, starting a session thread for each one.
+     */
+    private void acceptSessions() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+
+            if (!sessionPermits.tryAcquire()) {
+                reject(socket);
+                continue;
+            }
+
+            Thread session = new Thread(null, () -> runSession(socket),
+                    "hotel-terminal-" + sessionCount.incrementAndGet(), stackSize);
+            session.setDaemon(true);
+            session.start();
+        }
+    }
+
+    /**
+     * Run a main menu session bound to a terminal connection.
+     *
+     * @param socket the terminal connection.
+     */
+    private void runSession(Socket socket) {
+        try (socket) {
+            PrintStream output = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), true);
+            SessionStreams.bind(output);
+
+            try {
+                MainMenu mainMenu = new MainMenu(socket.getInputStream(), output);
+                mainMenu.getMainMenu();
+            } catch (StackOverflowError e) {
+                output.println("The session ran out of stack space and was closed. Please reconnect.");
+            }
+        } catch (IOException | NoSuchElementException | IllegalStateException e) {
+            // The terminal disconnected or the user exited.
+        } finally {
+            SessionStreams.unbind();
+            sessionPermits.release();
+        }
+    }
+
+    /**
+     * Tell a terminal that the server is full and disconnect it.
+     *
+     * @param socket the terminal connection.
+     */
+    private static void reject(Socket socket) {
+        try (socket; PrintStream output = new PrintStream(socket.getOutputStream(), true)) {
+            output.println("The server is busy. Please try again later.");
+        } catch (IOException e) {
+            // The terminal already disconnected.
+        }
+    }
+}
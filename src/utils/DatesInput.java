@@ -2,14 +2,19 @@ package utils;
 
 import model.Dates;
 
+import java.io.PrintStream;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.function.Predicate;
 
 public final class DatesInput {
+    private static final String DATE_FORMAT_ERROR = "Only the the format yyyy/MM/dd is allowed.";
+    private static final int DATE_LENGTH = 10;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+
     private DatesInput() {
         throw new UnsupportedOperationException("Utility class cannot be instantiated");
     }
@@ -18,53 +23,119 @@ public final class DatesInput {
      * Get the desired check-in and check-out dates.
      *
      * @param scanner the text scanner input.
+     * @param output  the text output.
      * @return the desired check-in and check-out dates.
      */
-    public static Dates getDates(Scanner scanner) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy/MM/dd");
-
-        LocalDate checkIn = getCheckIn(scanner, formatter);
-        LocalDate checkOut = getCheckOut(scanner, formatter, checkIn);
+    public static Dates getDates(Scanner scanner, PrintStream output) {
+        LocalDate checkIn = getCheckIn(scanner, output);
+        LocalDate checkOut = getCheckOut(scanner, output, checkIn);
 
         return new Dates(checkIn, checkOut);
     }
 
+    /**
+     * Get any date (e.g., the day of a report).
+     *
+     * @param scanner the text scanner input.
+     * @param output  the text output.
+     * @return the date.
+     */
+    public static LocalDate getDate(Scanner scanner, PrintStream output) {
+        String inputMessage = "Enter date as yyyy/MM/dd (e.g., 2026/01/01):";
+
+        return getDate(scanner, output, inputMessage, date -> true, "");
+    }
+
+    /**
+     * Parse a yyyy/MM/dd date.
+     *
+     * @param text the date text.
+     * @return the date.
+     * @throws DateTimeParseException if the text is not a yyyy/MM/dd date.
+     * @see #parseEpochDay(CharSequence)
+     */
+    public static LocalDate parseDate(CharSequence text) throws DateTimeParseException {
+        return LocalDate.ofEpochDay(parseEpochDay(text));
+    }
+
+    /**
+     * Parse a yyyy/MM/dd date into its epoch day, in one pass and without allocating (no formatter, no substrings).
+     * Like the {@code yyyy/MM/dd} formatter it replaces, a day past the end of its month (e.g., 2026/02/30) resolves
+     * to the last day of that month. Thread-safe.
+     *
+     * @param text the date text.
+     * @return the epoch day.
+     * @throws DateTimeParseException if the text is not a yyyy/MM/dd date.
+     */
+    public static long parseEpochDay(CharSequence text) throws DateTimeParseException {
+        if (text == null || text.length() != DATE_LENGTH || text.charAt(4) != '/' || text.charAt(7) != '/') {
+            throw parseError(text);
+        }
+
+        int year = parseDigits(text, 0, 4);
+        int month = parseDigits(text, 5, 7);
+        int day = parseDigits(text, 8, 10);
+
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            throw parseError(text);
+        }
+
+        return toEpochDay(year, month, Math.min(day, getMonthLength(year, month)));
+    }
+
+    /**
+     * Parse many yyyy/MM/dd dates at once (e.g., an import file).
+     *
+     * @param texts the date texts.
+     * @return the epoch day of each date.
+     * @throws DateTimeParseException if a text is not a yyyy/MM/dd date.
+     */
+    public static long[] parseEpochDays(List<? extends CharSequence> texts) throws DateTimeParseException {
+        long[] epochDays = new long[texts.size()];
+
+        for (int index = 0; index < epochDays.length; index++) {
+            epochDays[index] = parseEpochDay(texts.get(index));
+        }
+
+        return epochDays;
+    }
+
     /**
      * Get the check-in date.
      *
-     * @param scanner   the text scanner input.
-     * @param formatter the date formatter.
+     * @param scanner the text scanner input.
+     * @param output  the text output.
      * @return the check-in date.
      */
-    private static LocalDate getCheckIn(Scanner scanner, DateTimeFormatter formatter) {
+    private static LocalDate getCheckIn(Scanner scanner, PrintStream output) {
         String inputMessage = "Enter check-in date as yyyy/MM/dd (e.g., 2026/01/01):";
         Predicate<LocalDate> inputValidation = date -> date.isAfter(LocalDate.now());
         String errorMessage = "Enter a check-in date in the future:";
 
-        return getDate(scanner, formatter, inputMessage, inputValidation, errorMessage);
+        return getDate(scanner, output, inputMessage, inputValidation, errorMessage);
     }
 
     /**
      * Get the check-out date.
      *
      * @param scanner     the text scanner input.
-     * @param formatter   the date formatter.
+     * @param output      the text output.
      * @param checkInDate the check-in date.
      * @return the check-out date.
      */
-    private static LocalDate getCheckOut(Scanner scanner, DateTimeFormatter formatter, LocalDate checkInDate) {
+    private static LocalDate getCheckOut(Scanner scanner, PrintStream output, LocalDate checkInDate) {
         String inputMessage = "Enter check-out date as yyyy/MM/dd (e.g., 2026/01/15):";
         Predicate<LocalDate> inputValidation = date -> date.isAfter(checkInDate);
         String errorMessage = "Enter a check-out date that is after the check-in:";
 
-        return getDate(scanner, formatter, inputMessage, inputValidation, errorMessage);
+        return getDate(scanner, output, inputMessage, inputValidation, errorMessage);
     }
 
     /**
      * Get a valid date.
      *
      * @param scanner         the text scanner input.
-     * @param formatter       the date formatter.
+     * @param output          the text output.
      * @param inputMessage    the message that asks for the user input.
      * @param inputValidation single argument function that validates the input.
      * @param errorMessage    message to show if the input is invalid.
@@ -74,14 +145,14 @@ public final class DatesInput {
      * @throws DateTimeParseException   if the input date format is invalid.
      * @throws IllegalArgumentException if the input date is invalid.
      */
-    private static LocalDate getDate(Scanner scanner, DateTimeFormatter formatter, String inputMessage,
+    private static LocalDate getDate(Scanner scanner, PrintStream output, String inputMessage,
                                      Predicate<LocalDate> inputValidation, String errorMessage)
             throws NoSuchElementException, IllegalStateException, DateTimeParseException, IllegalArgumentException {
         do {
             try {
-                System.out.println(inputMessage);
+                output.println(inputMessage);
                 String input = scanner.nextLine();
-                LocalDate dateInput = LocalDate.parse(input, formatter);
+                LocalDate dateInput = parseDate(input);
 
                 if (!inputValidation.test(dateInput)) {
                     throw new IllegalArgumentException(errorMessage);
@@ -89,10 +160,63 @@ public final class DatesInput {
 
                 return dateInput;
             } catch (DateTimeParseException e) {
-                System.out.println("Only the the format yyyy/MM/dd is allowed.");
+                output.println(DATE_FORMAT_ERROR);
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
+
+    /**
+     * Parse the decimal digits in [from, to) of a text.
+     *
+     * @return the number, or -1 if a character is not a digit.
+     */
+    private static int parseDigits(CharSequence text, int from, int to) {
+        int number = 0;
+
+        for (int index = from; index < to; index++) {
+            char character = text.charAt(index);
+
+            if (character < '0' || character > '9') {
+                return -1;
+            }
+
+            number = number * 10 + (character - '0');
+        }
+
+        return number;
+    }
+
+    private static int getMonthLength(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Get the epoch day of a valid date (the same arithmetic as {@link LocalDate#toEpochDay()}, for positive years).
+     */
+    private static long toEpochDay(long year, long month, long day) {
+        long days = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400
+                + (367 * month - 362) / 12 + day - 1;
+
+        if (month > 2) {
+            days -= isLeapYear(year) ? 1 : 2;
+        }
+
+        return days - DAYS_0000_TO_1970;
+    }
+
+    private static DateTimeParseException parseError(CharSequence text) {
+        return new DateTimeParseException(DATE_FORMAT_ERROR, text == null ? "" : text, 0);
+    }
 }
@@ -1,5 +1,6 @@
 package utils;
 
+import java.io.PrintStream;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
@@ -13,14 +14,15 @@ public final class StringInput {
      *
      * @param message the message that asks for the user input.
      * @param scanner the text scanner input.
+     * @param output  the text output.
      * @return true if the user input Y.
      * @throws NoSuchElementException   if no line is found on the scanner.
      * @throws IllegalStateException    if the scanner is closed.
      * @throws IllegalArgumentException if the input is not Y or N (case-insensitive).
      */
-    public static boolean getYesOrNo(String message, Scanner scanner)
+    public static boolean getYesOrNo(String message, Scanner scanner, PrintStream output)
             throws NoSuchElementException, IllegalStateException, IllegalArgumentException {
-        System.out.println(message + " y/n");
+        output.println(message + " y/n");
 
         do {
             try {
@@ -31,8 +33,10 @@ public final class StringInput {
                 }
 
                 return input.equalsIgnoreCase("Y");
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }
@@ -42,19 +46,22 @@ public final class StringInput {
      *
      * @param message the message that asks for the user input.
      * @param scanner the text scanner input.
+     * @param output  the text output.
      * @return the input.
      * @throws NoSuchElementException if no line is found on the scanner.
      * @throws IllegalStateException  if the scanner is closed.
      */
-    public static String getNoCustomValidationStringInput(String message, Scanner scanner)
+    public static String getNoCustomValidationStringInput(String message, Scanner scanner, PrintStream output)
             throws NoSuchElementException, IllegalStateException {
         do {
             try {
-                System.out.println(message);
+                output.println(message);
 
                 return scanner.nextLine();
+            } catch (NoSuchElementException e) {
+                throw e;
             } catch (Exception e) {
-                System.out.println(e.getLocalizedMessage());
+                output.println(e.getLocalizedMessage());
             }
         } while (true);
     }